@@ -0,0 +1,62 @@
+package org.example.benchmarks;
+
+import org.example.services.Graph;
+import org.example.services.HeapDijkstra;
+import org.example.services.PooledDijkstra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Бенчмарк пакетного расчета времени в пути для массива случайных пар станций:
+ * последовательный поиск {@link HeapDijkstra} по каждой паре и параллельный пакетный
+ * запрос {@link PooledDijkstra}. Результат измеряется в расчете на одну пару.
+ */
+@State(Scope.Benchmark)
+public class BatchQueryBenchmark {
+
+    private static final int PAIRS = 4096;
+
+    @Param({"bundled", "10000", "100000"})
+    public String network;
+
+    private int[] departures;
+    private int[] arrivals;
+    private int[] minutes;
+    private HeapDijkstra heapDijkstra;
+    private PooledDijkstra pooledDijkstra;
+
+    @Setup
+    public void setUp() throws Exception {
+        Graph graph = SyntheticNetwork.load(network);
+        int[] pairs = SyntheticNetwork.randomPairs(graph, PAIRS, 7);
+        departures = new int[PAIRS];
+        arrivals = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            departures[i] = pairs[2 * i];
+            arrivals[i] = pairs[2 * i + 1];
+        }
+        minutes = new int[PAIRS];
+        heapDijkstra = new HeapDijkstra(graph);
+        pooledDijkstra = new PooledDijkstra(graph);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int[] sequentialHeapDijkstra() {
+        for (int i = 0; i < PAIRS; i++) {
+            minutes[i] = heapDijkstra.distance(departures[i], arrivals[i]);
+        }
+        return minutes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int[] pooledBatch() {
+        pooledDijkstra.distances(departures, arrivals, minutes);
+        return minutes;
+    }
+}
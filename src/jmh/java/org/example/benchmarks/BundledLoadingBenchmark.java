@@ -0,0 +1,28 @@
+package org.example.benchmarks;
+
+import org.example.services.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Бенчмарк загрузки сети метрополитена Санкт-Петербурга из файлов ресурсов.
+ */
+public class BundledLoadingBenchmark {
+
+    /**
+     * Загрузка с построением матрицы смежности, как в исходной версии.
+     */
+    @Benchmark
+    public Matrix matrixWithAdjacency() throws FileNotFoundException {
+        return new Matrix("stations.txt", "rebra.txt");
+    }
+
+    /**
+     * Загрузка только сжатого графа без матрицы смежности.
+     */
+    @Benchmark
+    public Matrix matrixWithoutAdjacency() throws FileNotFoundException {
+        return new Matrix("stations.txt", "rebra.txt", false);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.benchmarks;
+
+import org.example.services.Dijkstra;
+import org.example.services.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Бенчмарк исходного алгоритма {@link Dijkstra#dijkstra} со сложностью O(V²).
+ * Запускается только на сетях, для которых он завершается за разумное время.
+ */
+@State(Scope.Thread)
+public class LegacyDijkstraBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"bundled", "1000"})
+    public String network;
+
+    private Graph graph;
+    private int[][] adjacencyMatrix;
+    private int[] pairs;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        graph = SyntheticNetwork.load(network);
+        adjacencyMatrix = graph.toAdjacencyMatrix();
+        pairs = SyntheticNetwork.randomPairs(graph, PAIRS, 7);
+    }
+
+    @Benchmark
+    public String dijkstraMatrix() {
+        int pair = 2 * (next++ & (PAIRS - 1));
+        return Dijkstra.dijkstra(adjacencyMatrix, pairs[pair], pairs[pair + 1]);
+    }
+
+    @Benchmark
+    public String dijkstraGraph() {
+        int pair = 2 * (next++ & (PAIRS - 1));
+        return Dijkstra.dijkstra(graph, pairs[pair], pairs[pair + 1]);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.benchmarks;
+
+import org.example.services.ContractionHierarchy;
+import org.example.services.DialDijkstra;
+import org.example.services.Graph;
+import org.example.services.HeapDijkstra;
+import org.example.services.HierarchyDijkstra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Бенчмарк поиска минимального расстояния между случайными парами станций
+ * алгоритмами с очередью с приоритетами на сети Санкт-Петербурга и синтетических сетях.
+ * Иерархия сжатия для {@link HierarchyDijkstra} строится при подготовке и в замер не входит.
+ */
+@State(Scope.Thread)
+public class ShortestPathBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"bundled", "1000", "10000", "100000"})
+    public String network;
+
+    private int[] pairs;
+    private HeapDijkstra heapDijkstra;
+    private DialDijkstra dialDijkstra;
+    private HierarchyDijkstra hierarchyDijkstra;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Graph graph = SyntheticNetwork.load(network);
+        pairs = SyntheticNetwork.randomPairs(graph, PAIRS, 7);
+        heapDijkstra = new HeapDijkstra(graph);
+        dialDijkstra = new DialDijkstra(graph);
+        hierarchyDijkstra = new HierarchyDijkstra(ContractionHierarchy.build(graph));
+    }
+
+    @Benchmark
+    public int heapDijkstra() {
+        int pair = 2 * (next++ & (PAIRS - 1));
+        return heapDijkstra.distance(pairs[pair], pairs[pair + 1]);
+    }
+
+    @Benchmark
+    public int dialDijkstra() {
+        int pair = 2 * (next++ & (PAIRS - 1));
+        return dialDijkstra.distance(pairs[pair], pairs[pair + 1]);
+    }
+
+    @Benchmark
+    public int hierarchyDijkstra() {
+        int pair = 2 * (next++ & (PAIRS - 1));
+        return hierarchyDijkstra.distance(pairs[pair], pairs[pair + 1]);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.benchmarks;
+
+import org.example.services.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Бенчмарк поиска индекса станции по названию в сети метрополитена Санкт-Петербурга.
+ */
+@State(Scope.Thread)
+public class StationLookupBenchmark {
+
+    private Matrix matrix;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        matrix = new Matrix("stations.txt", "rebra.txt", false);
+        names = matrix.stationsNames.toArray(new String[0]);
+    }
+
+    /**
+     * Поиск через {@link Matrix#getIndexOfTheStation(String)}.
+     */
+    @Benchmark
+    public int getIndexOfTheStation() {
+        return matrix.getIndexOfTheStation(names[next++ % names.length]);
+    }
+
+    /**
+     * Поиск непосредственно в индексе названий.
+     */
+    @Benchmark
+    public int stationIndex() {
+        return matrix.stationIndex.indexOf(names[next++ % names.length]);
+    }
+}
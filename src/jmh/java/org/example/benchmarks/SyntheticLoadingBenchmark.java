@@ -0,0 +1,56 @@
+package org.example.benchmarks;
+
+import org.example.services.Graph;
+import org.example.services.NetworkFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Бенчмарк построения графа для синтетических сетей разного размера.
+ * Построение матрицы смежности измеряется отдельно в {@link SyntheticMatrixBenchmark}.
+ */
+@State(Scope.Benchmark)
+public class SyntheticLoadingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int numOfStations;
+
+    private SyntheticNetwork network;
+    private Path networkFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        network = new SyntheticNetwork(numOfStations, 42);
+        networkFile = Files.createTempFile("network", ".bin");
+        NetworkFile.compile(network.toGraph(), networkFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(networkFile);
+    }
+
+    /**
+     * Построение сжатого графа по списку ребер.
+     */
+    @Benchmark
+    public Graph graph() {
+        return network.toGraph();
+    }
+
+    /**
+     * Загрузка графа из скомпилированного двоичного файла сети.
+     */
+    @Benchmark
+    public Graph networkFile() throws IOException {
+        return NetworkFile.load(networkFile);
+    }
+}
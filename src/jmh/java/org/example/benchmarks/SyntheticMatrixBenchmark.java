@@ -0,0 +1,34 @@
+package org.example.benchmarks;
+
+import org.example.services.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Бенчмарк построения матрицы смежности по графу синтетической сети. Размеры сетей
+ * ограничены теми, где матрица помещается в память: для 100 000 станций она заняла бы 40 ГБ.
+ */
+@State(Scope.Benchmark)
+public class SyntheticMatrixBenchmark {
+
+    @Param({"1000", "10000"})
+    public int numOfStations;
+
+    private Graph graph;
+
+    @Setup
+    public void setUp() {
+        graph = new SyntheticNetwork(numOfStations, 42).toGraph();
+    }
+
+    /**
+     * Построение матрицы смежности по графу.
+     */
+    @Benchmark
+    public int[][] adjacencyMatrix() {
+        return graph.toAdjacencyMatrix();
+    }
+}
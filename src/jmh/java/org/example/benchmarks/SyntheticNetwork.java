@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import org.example.services.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Класс SyntheticNetwork генерирует сеть, похожую на метрополитен, заданного размера:
+ * станции объединены в линии по 25 станций с временем в пути 2-5 минут между соседними
+ * станциями, а линии связаны пересадками. Генерация детерминирована для одного и того же
+ * начального значения генератора.
+ */
+public class SyntheticNetwork {
+
+    private static final int STATIONS_PER_LINE = 25;
+    private static final int TRANSFERS_PER_LINE = 3;
+    public final List<String> stationsNames;
+    public final int[] from;
+    public final int[] to;
+    public final int[] weights;
+    public final int numOfEdges;
+
+    /**
+     * Конструктор класса SyntheticNetwork.
+     *
+     * @param numOfStations количество станций.
+     * @param seed начальное значение генератора случайных чисел.
+     */
+    public SyntheticNetwork(int numOfStations, long seed) {
+        Random random = new Random(seed);
+        stationsNames = new ArrayList<>(numOfStations);
+        for (int i = 0; i < numOfStations; i++) {
+            stationsNames.add("СТАНЦИЯ " + i);
+        }
+        int capacity = numOfStations + (numOfStations / STATIONS_PER_LINE + 1) * TRANSFERS_PER_LINE;
+        from = new int[capacity];
+        to = new int[capacity];
+        weights = new int[capacity];
+        int edges = 0;
+        for (int lineStart = 0; lineStart < numOfStations; lineStart += STATIONS_PER_LINE) {
+            int lineEnd = Math.min(lineStart + STATIONS_PER_LINE, numOfStations);
+            for (int station = lineStart + 1; station < lineEnd; station++) {
+                from[edges] = station - 1;
+                to[edges] = station;
+                weights[edges++] = 2 + random.nextInt(4);
+            }
+            // Каждая линия, кроме первой, связана пересадками с ранее построенными линиями
+            for (int t = 0; lineStart > 0 && t < TRANSFERS_PER_LINE; t++) {
+                from[edges] = lineStart + random.nextInt(lineEnd - lineStart);
+                to[edges] = random.nextInt(lineStart);
+                weights[edges++] = 2 + random.nextInt(4);
+            }
+        }
+        numOfEdges = edges;
+    }
+
+    /**
+     * Строит граф по сгенерированной сети.
+     *
+     * @return граф в сжатом формате.
+     */
+    public Graph toGraph() {
+        return new Graph(stationsNames, from, to, weights, numOfEdges);
+    }
+
+    /**
+     * Загружает сеть по имени параметра бенчмарка: {@code bundled} - сеть метрополитена
+     * Санкт-Петербурга из ресурсов, число - синтетическая сеть с таким количеством станций.
+     *
+     * @param network имя сети.
+     * @return граф сети.
+     * @throws Exception если не удалось загрузить файлы сети.
+     */
+    public static Graph load(String network) throws Exception {
+        if (network.equals("bundled")) {
+            return Graph.fromFiles("stations.txt", "rebra.txt");
+        }
+        return new SyntheticNetwork(Integer.parseInt(network), 42).toGraph();
+    }
+
+    /**
+     * Выбирает случайные пары станций для запросов.
+     *
+     * @param graph граф сети.
+     * @param count количество пар.
+     * @param seed начальное значение генератора случайных чисел.
+     * @return массив, в котором пары записаны подряд: отправление, прибытие.
+     */
+    public static int[] randomPairs(Graph graph, int count, long seed) {
+        Random random = new Random(seed);
+        int[] pairs = new int[2 * count];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(graph.numOfTheStations);
+        }
+        return pairs;
+    }
+}
@@ -1,21 +1,288 @@
 package org.example;
 
 import org.example.front.SubwayApp;
+import org.example.server.LoadGenerator;
+import org.example.server.RoutingServer;
+import org.example.services.BatchRouter;
+import org.example.services.ConnectionScan;
+import org.example.services.ContractionHierarchy;
+import org.example.services.Graph;
+import org.example.services.HeapDijkstra;
+import org.example.services.HierarchyDijkstra;
+import org.example.services.Metrics;
+import org.example.services.NetworkFile;
+import org.example.services.NetworkManager;
+import org.example.services.Route;
+import org.example.services.ShortestPathEngine;
+import org.example.services.Timetable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Класс Launcher служит точкой входа в приложение SubwayApp.
  * Он содержит метод main, который запускает приложение.
+ *
+ * <p>Без аргументов запускается графический интерфейс. Остальные режимы работают без интерфейса:</p>
+ * <pre>
+ * --batch [файл с парами|-] [файл результата|-]   пакетный расчет времени в пути для списка пар станций
+ * --server [порт]                                 HTTP-сервер маршрутов, по умолчанию порт 8080;
+ *                                                 раз в минуту записывает отчет о метриках в журнал
+ * --load-test [адрес] [потоки] [запросов]         нагрузочный тест HTTP-сервера
+ * --compile станции ребра [файл сети]             компиляция файлов станций и ребер в двоичный файл сети,
+ *                                                 по умолчанию network.bin
+ * --journey откуда куда ЧЧ:ММ                     самое раннее прибытие по расписанию из lines.txt
+ * --hierarchy [файл иерархии]                     построение иерархии сжатия, по умолчанию hierarchy.bin,
+ *                                                 и сверка ее ответов с HeapDijkstra на всех парах станций
+ * </pre>
+ * <p>Знак {@code -} или отсутствие аргумента файла означает стандартный ввод или вывод.
+ * Если задано системное свойство {@code subway.network}, режимы {@code --batch} и {@code --server}
+ * загружают граф из указанного файла сети вместо текстовых файлов. Если заданы свойства
+ * {@code subway.stations} и {@code subway.edges}, интерфейс и режим {@code --server} загружают
+ * сеть из этих внешних файлов и перезагружают ее при их изменении без перезапуска. Иначе, если задано
+ * свойство {@code subway.hierarchy}, режим {@code --server} ищет маршруты по иерархии сжатия
+ * из указанного файла, строя и сохраняя ее при отсутствии.</p>
  */
 public class Launcher {
 
+    private static final long METRICS_DUMP_SECONDS = 60;
+    private static final String NETWORK_PROPERTY = "subway.network";
+    private static final String HIERARCHY_PROPERTY = "subway.hierarchy";
+
     /**
      * Главный метод приложения, который запускает SubwayApp.
      *
      * @param args массив строковых аргументов командной строки, переданных при запуске приложения.
-     *             Этот параметр может использоваться для передачи дополнительных данных в приложение,
-     *             но в данном случае не используется.
+     *             Если первый аргумент - {@code --batch}, {@code --server}, {@code --load-test}
+     *             или {@code --compile}, вместо интерфейса запускается соответствующий режим.
      */
     public static void main(String[] args) {
-        SubwayApp.init(args);
+        String mode = args.length > 0 ? args[0] : "";
+        switch (mode) {
+            case "--batch":
+                runBatch(args);
+                break;
+            case "--server":
+                runServer(args);
+                break;
+            case "--load-test":
+                runLoadTest(args);
+                break;
+            case "--compile":
+                runCompile(args);
+                break;
+            case "--journey":
+                runJourney(args);
+                break;
+            case "--hierarchy":
+                runHierarchy(args);
+                break;
+            default:
+                SubwayApp.init(args);
+        }
+    }
+
+    /**
+     * Запускает пакетный расчет маршрутов без графического интерфейса.
+     *
+     * @param args аргументы командной строки: {@code --batch [вход] [выход]}.
+     */
+    private static void runBatch(String[] args) {
+        String inputName = args.length > 1 ? args[1] : "-";
+        String outputName = args.length > 2 ? args[2] : "-";
+        try (BufferedReader input = inputName.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Path.of(inputName), StandardCharsets.UTF_8);
+             Writer output = outputName.equals("-")
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedWriter(Path.of(outputName), StandardCharsets.UTF_8)) {
+            new BatchRouter(loadGraph()).run(input, output);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка пакетного расчета: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Компилирует файлы станций и ребер в двоичный файл сети.
+     *
+     * @param args аргументы командной строки: {@code --compile станции ребра [файл сети]}.
+     */
+    private static void runCompile(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Укажите файлы станций и ребер: --compile станции ребра [файл сети]");
+            System.exit(1);
+        }
+        Path target = Path.of(args.length > 3 ? args[3] : "network.bin");
+        try {
+            NetworkFile.compile(Graph.fromFiles(Path.of(args[1]), Path.of(args[2])), target);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка компиляции файла сети: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Находит поездку с самым ранним прибытием по расписанию и выводит ее участки.
+     *
+     * @param args аргументы командной строки: {@code --journey откуда куда ЧЧ:ММ}.
+     */
+    private static void runJourney(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Укажите станцию отправления, станцию назначения и время: --journey откуда куда ЧЧ:ММ");
+            System.exit(1);
+        }
+        try {
+            Graph graph = loadGraph();
+            Timetable timetable = Timetable.fromFile(graph, "lines.txt");
+            int departureIdx = graph.stationIndex.indexOf(args[1]);
+            int arrivalIdx = graph.stationIndex.indexOf(args[2]);
+            if (departureIdx == -1 || arrivalIdx == -1) {
+                throw new IllegalArgumentException("Станция '" + (departureIdx == -1 ? args[1] : args[2]) + "' не найдена.");
+            }
+            System.out.println(new ConnectionScan(timetable).journey(departureIdx, arrivalIdx, Timetable.parseTime(args[3])));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка поиска поездки: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Строит или загружает иерархию сжатия и сверяет расстояния и маршруты, найденные
+     * по ней, с {@link HeapDijkstra} для каждой пары станций. При расхождении процесс
+     * завершается с кодом 1.
+     *
+     * @param args аргументы командной строки: {@code --hierarchy [файл иерархии]}.
+     */
+    private static void runHierarchy(String[] args) {
+        Path snapshot = Path.of(args.length > 1 ? args[1] : "hierarchy.bin");
+        int mismatches = 0;
+        long pairs = 0;
+        try {
+            Graph graph = loadGraph();
+            ContractionHierarchy hierarchy = ContractionHierarchy.loadOrBuild(graph, snapshot);
+            ShortestPathEngine expected = new HeapDijkstra(graph);
+            ShortestPathEngine actual = new HierarchyDijkstra(hierarchy);
+            for (int departureIdx = 0; departureIdx < graph.numOfTheStations; departureIdx++) {
+                for (int arrivalIdx = 0; arrivalIdx < graph.numOfTheStations; arrivalIdx++) {
+                    pairs++;
+                    int minutes = expected.distance(departureIdx, arrivalIdx);
+                    Route route = actual.route(departureIdx, arrivalIdx);
+                    if (actual.distance(departureIdx, arrivalIdx) != minutes || !isValidRoute(graph, route, departureIdx, arrivalIdx, minutes)) {
+                        mismatches++;
+                        System.err.println("Расхождение: " + graph.stationsNames.get(departureIdx) + " → "
+                                + graph.stationsNames.get(arrivalIdx) + ": ожидалось " + minutes + ", получено " + route.totalMinutes);
+                    }
+                }
+            }
+            System.out.println("Проверено пар станций: " + pairs + ", сокращений в иерархии: "
+                    + hierarchy.numOfShortcuts() + ", расхождений: " + mismatches + ".");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка построения иерархии: " + e.getMessage());
+            System.exit(1);
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Проверяет, что маршрут соединяет указанные станции существующими перегонами
+     * и его время совпадает с ожидаемым.
+     *
+     * @param graph граф метрополитена.
+     * @param route проверяемый маршрут.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @param minutes ожидаемое время в пути или {@link ShortestPathEngine#UNREACHABLE}.
+     * @return true, если маршрут верен.
+     */
+    private static boolean isValidRoute(Graph graph, Route route, int departureIdx, int arrivalIdx, int minutes) {
+        if (minutes == ShortestPathEngine.UNREACHABLE) {
+            return !route.isFound();
+        }
+        if (route.totalMinutes != minutes || route.stations[0] != departureIdx
+                || route.stations[route.stations.length - 1] != arrivalIdx) {
+            return false;
+        }
+        int total = 0;
+        for (int i = 0; i < route.segmentMinutes.length; i++) {
+            boolean edgeFound = false;
+            for (int e = graph.offsets[route.stations[i]]; e < graph.offsets[route.stations[i] + 1]; e++) {
+                edgeFound |= graph.targets[e] == route.stations[i + 1] && graph.weights[e] == route.segmentMinutes[i];
+            }
+            if (!edgeFound) {
+                return false;
+            }
+            total += route.segmentMinutes[i];
+        }
+        return total == minutes;
+    }
+
+    /**
+     * Загружает граф из файла сети, указанного в свойстве {@code subway.network},
+     * или из текстовых файлов станций и ребер, если свойство не задано.
+     *
+     * @return граф метрополитена.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    private static Graph loadGraph() throws IOException {
+        String network = System.getProperty(NETWORK_PROPERTY);
+        return network != null ? NetworkFile.load(Path.of(network)) : Graph.fromFiles("stations.txt", "rebra.txt");
+    }
+
+    /**
+     * Запускает HTTP-сервер маршрутов, который работает до завершения процесса.
+     *
+     * @param args аргументы командной строки: {@code --server [порт]}.
+     */
+    private static void runServer(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            String stationsFile = System.getProperty("subway.stations");
+            String edgesFile = System.getProperty("subway.edges");
+            RoutingServer server;
+            if (stationsFile != null && edgesFile != null) {
+                NetworkManager network = new NetworkManager(Path.of(stationsFile), Path.of(edgesFile));
+                server = new RoutingServer(() -> network.current().graph, port);
+            } else if (System.getProperty(HIERARCHY_PROPERTY) != null) {
+                Graph graph = loadGraph();
+                ContractionHierarchy hierarchy = ContractionHierarchy.loadOrBuild(graph, Path.of(System.getProperty(HIERARCHY_PROPERTY)));
+                server = new RoutingServer(() -> graph, g -> new HierarchyDijkstra(hierarchy), port);
+            } else {
+                server = new RoutingServer(loadGraph(), port);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            Metrics.startPeriodicDump(METRICS_DUMP_SECONDS);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка запуска сервера: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Запускает нагрузочный тест HTTP-сервера маршрутов.
+     *
+     * @param args аргументы командной строки: {@code --load-test [адрес] [потоки] [запросов на поток]}.
+     */
+    private static void runLoadTest(String[] args) {
+        try {
+            URI baseUri = URI.create(args.length > 1 ? args[1] : "http://localhost:8080");
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+            int requests = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+            new LoadGenerator(Graph.fromFiles("stations.txt", "rebra.txt"), baseUri).run(threads, requests, "/route");
+        } catch (Exception e) {
+            System.err.println("Ошибка нагрузочного теста: " + e.getMessage());
+            System.exit(1);
+        }
     }
-}
\ No newline at end of file
+}
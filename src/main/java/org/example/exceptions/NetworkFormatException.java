@@ -0,0 +1,43 @@
+package org.example.exceptions;
+
+/**
+ * Исключение NetworkFormatException выбрасывается, если строка файла станций или ребер
+ * заполнена неправильно. Сообщение содержит имя файла и номер строки, чтобы ошибку
+ * можно было быстро найти и исправить.
+ */
+public class NetworkFormatException extends IllegalArgumentException {
+
+    private final String fileName;
+    private final int lineNumber;
+
+    /**
+     * Конструктор класса NetworkFormatException.
+     *
+     * @param fileName имя файла с ошибкой.
+     * @param lineNumber номер строки с ошибкой, начиная с 1.
+     * @param message описание ошибки.
+     */
+    public NetworkFormatException(String fileName, int lineNumber, String message) {
+        super(fileName + ", строка " + lineNumber + ": " + message);
+        this.fileName = fileName;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Возвращает имя файла с ошибкой.
+     *
+     * @return имя файла.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Возвращает номер строки с ошибкой.
+     *
+     * @return номер строки, начиная с 1.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.front;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -12,24 +14,50 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.example.Launcher;
+import org.example.services.AllPairsTable;
+import org.example.services.AsyncQueryExecutor;
+import org.example.services.Graph;
+import org.example.services.HeapDijkstra;
 import org.example.services.Matrix;
+import org.example.services.NetworkManager;
+import org.example.services.NetworkSnapshot;
+import org.example.services.QueryLog;
+import org.example.services.Route;
+import org.example.services.ShortestPathEngine;
 import org.example.exceptions.ErrorHandler;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.example.services.Dijkstra.dijkstra;
 /**
  * Главный класс приложения SubwayApp, реализующий интерфейс для работы с метрополитеном.
  * Приложение позволяет пользователю вводить станции отправления и прибытия,
  * а также рассчитывать минимальный путь между ними.
+ *
+ * <p>Окно открывается сразу после загрузки графа. Таблица расстояний для всех пар станций
+ * {@link AllPairsTable} загружается или строится в фоновом потоке; пока она не готова,
+ * а также для сетей, где таблица заняла бы слишком много памяти, маршрут ищется
+ * поиском {@link HeapDijkstra} по графу.</p>
  */
 public class SubwayApp extends Application {
 
     private static final Logger logger = LogManager.getLogger(SubwayApp.class);
+    private static final Path ALL_PAIRS_SNAPSHOT = Path.of("cache", "all-pairs.bin");
+    private static final int SUGGESTIONS_LIMIT = 8;
+    private static final int MAX_TABLE_STATIONS = 5_000; // Две таблицы V × V по 100 МБ
     private TextField departureField;
     private TextField arrivalField;
     private TextField distanceField;
-    private Matrix sbwMatrix;
+    private TextArea routeArea;
+    private final AtomicReference<NetworkSnapshot> network = new AtomicReference<>();
+    private NetworkManager networkManager;
+    private AsyncQueryExecutor queryExecutor;
+    private ExecutorService tableBuilder;
 
 
     /**
@@ -41,12 +69,22 @@ public class SubwayApp extends Application {
     public void start(Stage primaryStage) {
         logger.info("Начат запуск программы.");
         try {
-            sbwMatrix = new Matrix("stations.txt", "rebra.txt");
+            tableBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "all-pairs-build");
+                thread.setDaemon(true);
+                return thread;
+            });
+            publish(loadNetwork());
+            queryExecutor = new AsyncQueryExecutor(Platform::runLater);
             logger.info("Данные метрополитена загружены успешно.");
         } catch (FileNotFoundException e) {
             ErrorHandler.handleFileNotFoundException(e);
             logger.error("Не удалось загрузить данные.");
             return; // Завершаем выполнение, если не удалось загрузить данные
+        } catch (IOException | RuntimeException e) {
+            ErrorHandler.handleError("Ошибка загрузки данных: " + e.getMessage());
+            logger.error("Не удалось загрузить данные.");
+            return;
         }
 
         primaryStage.setTitle("Метрополитен Санкт-Петербурга");
@@ -62,35 +100,48 @@ public class SubwayApp extends Application {
         // Создание полей для ввода станций
         departureField = new TextField();
         arrivalField = new TextField();
+        attachAutocomplete(departureField);
+        attachAutocomplete(arrivalField);
+        // При изменении станций результат выполняющегося запроса больше не нужен
+        departureField.textProperty().addListener((observable, oldText, newText) -> queryExecutor.cancel());
+        arrivalField.textProperty().addListener((observable, oldText, newText) -> queryExecutor.cancel());
         distanceField = new TextField();
         distanceField.setEditable(false);
+        routeArea = new TextArea();
+        routeArea.setEditable(false);
+        routeArea.setWrapText(true);
+        routeArea.setPrefRowCount(3);
 
         // Кнопки для очистки полей
         Button clearDepartureButton = new Button("Очистить");
         clearDepartureButton.setOnAction(e -> {
             departureField.clear();
+            routeArea.clear();
             logger.info("Поле 'станция отправления' успешно очищена");
         });
 
         Button clearArrivalButton = new Button("Очистить");
         clearArrivalButton.setOnAction(e -> {
             arrivalField.clear();
+            routeArea.clear();
             logger.info("Поле 'станция прибытия' успешно очищена");
         });
 
         Button calculateButton = new Button("Рассчитать путь");
         calculateButton.setOnAction(e -> {
-            try {
-                int departureIdx = getIdx(sbwMatrix, departureField.getText());
-                int arrivalIdx = getIdx(sbwMatrix, arrivalField.getText());
-                logger.info("Данные о станциях успешно получены и перенаправлены на обработку.");
-                String result = dijkstra(sbwMatrix.adjacencyMatrix, departureIdx, arrivalIdx);
-                distanceField.setText(result);
-                logger.info("Минимальное расстояние получено.");
-            } catch (Exception ex) {
+            String departure = departureField.getText();
+            String arrival = arrivalField.getText();
+            // Поиск выполняется в фоновом потоке, результат выводится в потоке интерфейса
+            queryExecutor.submit(() -> findRoute(departure, arrival), route -> {
+                distanceField.setText(Integer.toString(route.totalMinutes));
+                routeArea.setText(route.toString());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Минимальное расстояние получено.");
+                }
+            }, ex -> {
                 logger.error("Введены некорректные данные.");
                 ErrorHandler.handleError(ex.getMessage());
-            }
+            });
         });
 
         Button exitButton = new Button("Выход");
@@ -117,12 +168,15 @@ public class SubwayApp extends Application {
         inputGrid.add(new Label("Минимальный путь (мин):"), 0, 2);
         inputGrid.add(distanceField, 1, 2);
 
-        inputGrid.add(calculateButton, 1, 3);
-        inputGrid.add(exitButton, 2, 3);
+        inputGrid.add(new Label("Маршрут:"), 0, 3);
+        inputGrid.add(routeArea, 1, 3, 2, 1);
+
+        inputGrid.add(calculateButton, 1, 4);
+        inputGrid.add(exitButton, 2, 4);
 
         borderPane.setBottom(inputGrid);
 
-        Scene scene = new Scene(borderPane, 600, 750);
+        Scene scene = new Scene(borderPane, 600, 820);
         primaryStage.setScene(scene);
         primaryStage.show();
         logger.info("Программа успешно запущена");
@@ -146,6 +200,141 @@ public class SubwayApp extends Application {
         }
     }
 
+    /**
+     * Находит маршрут между станциями по их названиям. Вызывается в фоновом потоке.
+     *
+     * @param departure название станции отправления
+     * @param arrival название станции прибытия
+     * @return найденный маршрут
+     * @throws Exception если станция не найдена или маршрут между станциями не существует
+     */
+    private Route findRoute(String departure, String arrival) throws Exception {
+        // Весь запрос выполняется на одном снимке сети, даже если она перезагружается
+        NetworkSnapshot snapshot = network.get();
+        int departureIdx = snapshot.indexOf(departure.toUpperCase());
+        int arrivalIdx = snapshot.indexOf(arrival.toUpperCase());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Данные о станциях успешно получены и перенаправлены на обработку.");
+        }
+        long start = System.nanoTime();
+        // Пока таблица расстояний не готова, маршрут ищется по графу снимка
+        ShortestPathEngine engine = snapshot.table != null ? snapshot.table : new HeapDijkstra(snapshot.graph);
+        Route route = engine.route(departureIdx, arrivalIdx);
+        QueryLog.summary("ui", departureIdx, arrivalIdx, route.totalMinutes, System.nanoTime() - start);
+        if (!route.isFound()) {
+            throw new IllegalArgumentException("Маршрут между станциями не найден.");
+        }
+        return route;
+    }
+
+    /**
+     * Загружает сеть метрополитена. Если заданы системные свойства {@code subway.stations}
+     * и {@code subway.edges}, сеть загружается из этих файлов и перезагружается при их
+     * изменении; иначе используются файлы из ресурсов приложения.
+     *
+     * @return первый снимок сети без таблицы расстояний.
+     * @throws IOException если файлы не удалось прочитать.
+     */
+    private NetworkSnapshot loadNetwork() throws IOException {
+        String stationsFile = System.getProperty("subway.stations");
+        String edgesFile = System.getProperty("subway.edges");
+        if (stationsFile != null && edgesFile != null) {
+            networkManager = new NetworkManager(Path.of(stationsFile), Path.of(edgesFile));
+            networkManager.addListener(this::publish);
+            return networkManager.current();
+        }
+        Graph graph = new Matrix("stations.txt", "rebra.txt", false).graph;
+        return new NetworkSnapshot(graph, null);
+    }
+
+    /**
+     * Делает снимок сети текущим и запускает в фоновом потоке загрузку или построение
+     * таблицы расстояний для него. Готовая таблица заменяет снимок, только если сеть
+     * за это время не была перезагружена.
+     *
+     * @param snapshot новый снимок сети без таблицы расстояний.
+     */
+    private void publish(NetworkSnapshot snapshot) {
+        network.set(snapshot);
+        int numOfStations = snapshot.graph.numOfTheStations;
+        if (numOfStations > MAX_TABLE_STATIONS) {
+            logger.info("Сеть из {} станций слишком велика для таблицы расстояний, маршруты ищутся по графу.", numOfStations);
+            return;
+        }
+        tableBuilder.execute(() -> {
+            if (network.get() != snapshot) {
+                return; // Сеть уже перезагружена, таблица для этого снимка не нужна
+            }
+            try {
+                AllPairsTable table = AllPairsTable.loadOrBuild(snapshot.graph, ALL_PAIRS_SNAPSHOT);
+                if (network.compareAndSet(snapshot, new NetworkSnapshot(snapshot.graph, table))) {
+                    logger.info("Таблица расстояний готова.");
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось построить таблицу расстояний, маршруты ищутся по графу: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Останавливает фоновые потоки поиска маршрутов и слежение за файлами при закрытии приложения.
+     */
+    @Override
+    public void stop() {
+        if (queryExecutor != null) {
+            queryExecutor.close();
+        }
+        if (tableBuilder != null) {
+            tableBuilder.shutdownNow();
+        }
+        if (networkManager != null) {
+            try {
+                networkManager.close();
+            } catch (IOException e) {
+                logger.warn("Не удалось остановить слежение за файлами сети: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Подключает к полю ввода выпадающий список подсказок названий станций.
+     * Подсказки обновляются при каждом изменении текста, пока поле в фокусе.
+     *
+     * @param field поле ввода названия станции
+     */
+    private void attachAutocomplete(TextField field) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+        suggestionsMenu.setAutoHide(true);
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            if (!field.isFocused()) {
+                return;
+            }
+            List<String> suggestions = network.get().autocomplete.suggest(newText, SUGGESTIONS_LIMIT);
+            if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.get(0).equals(newText))) {
+                suggestionsMenu.hide();
+                return;
+            }
+            suggestionsMenu.getItems().clear();
+            for (String name : suggestions) {
+                MenuItem item = new MenuItem(name);
+                item.setOnAction(e -> {
+                    field.setText(name);
+                    field.positionCaret(name.length());
+                    suggestionsMenu.hide();
+                });
+                suggestionsMenu.getItems().add(item);
+            }
+            if (!suggestionsMenu.isShowing()) {
+                suggestionsMenu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+        field.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                suggestionsMenu.hide();
+            }
+        });
+    }
+
     /**
      * Получает индекс станции в матрице на основе её названия.
      *
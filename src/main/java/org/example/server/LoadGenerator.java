@@ -0,0 +1,114 @@
+package org.example.server;
+
+import org.example.services.Graph;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Класс LoadGenerator создает нагрузку на {@link RoutingServer} для оценки его
+ * производительности. Несколько потоков отправляют запросы маршрутов между случайными
+ * парами станций, после чего выводятся пропускная способность и задержки
+ * (медиана и 99-й процентиль).
+ */
+public class LoadGenerator {
+
+    private final Graph graph;
+    private final URI baseUri;
+    private final HttpClient client;
+
+    /**
+     * Конструктор класса LoadGenerator.
+     *
+     * @param graph граф, из которого выбираются пары станций.
+     * @param baseUri адрес сервера, например {@code http://localhost:8080}.
+     */
+    public LoadGenerator(Graph graph, URI baseUri) {
+        this.graph = graph;
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Отправляет запросы и выводит результат в стандартный вывод.
+     *
+     * @param threads количество одновременно работающих потоков.
+     * @param requestsPerThread количество запросов, отправляемых каждым потоком.
+     * @param path путь запроса: {@code /distance} или {@code /route}.
+     * @throws Exception если поток нагрузки завершился с ошибкой.
+     */
+    public void run(int threads, int requestsPerThread, String path) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures.add(pool.submit(() -> sendRequests(requestsPerThread, path, new Random(seed))));
+            }
+            long[] latencies = new long[threads * requestsPerThread];
+            int errors = 0;
+            for (int t = 0; t < threads; t++) {
+                long[] threadLatencies = futures.get(t).get();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    latencies[t * requestsPerThread + i] = threadLatencies[i];
+                    if (threadLatencies[i] < 0) {
+                        errors++;
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            int ok = latencies.length - errors;
+            System.out.printf("Запросов: %d, ошибок: %d, время: %.2f с%n", latencies.length, errors, seconds);
+            System.out.printf("Пропускная способность: %.0f запросов/с%n", latencies.length / seconds);
+            if (ok > 0) {
+                System.out.printf("Задержка p50: %.3f мс, p99: %.3f мс%n",
+                        latencies[errors + (ok - 1) / 2] / 1e6, latencies[errors + (int) ((ok - 1) * 0.99)] / 1e6);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Отправляет запросы из одного потока.
+     *
+     * @param count количество запросов.
+     * @param path путь запроса.
+     * @param random генератор случайных пар станций.
+     * @return задержки запросов в наносекундах; -1 для запросов, завершившихся ошибкой.
+     */
+    private long[] sendRequests(int count, String path, Random random) {
+        long[] latencies = new long[count];
+        int numOfStations = graph.numOfTheStations;
+        for (int i = 0; i < count; i++) {
+            String from = URLEncoder.encode(graph.stationsNames.get(random.nextInt(numOfStations)), StandardCharsets.UTF_8);
+            String to = URLEncoder.encode(graph.stationsNames.get(random.nextInt(numOfStations)), StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path + "?from=" + from + "&to=" + to)).GET().build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                latencies[i] = response.statusCode() == 200 ? System.nanoTime() - start : -1;
+            } catch (IOException e) {
+                latencies[i] = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                latencies[i] = -1;
+            }
+        }
+        return latencies;
+    }
+}
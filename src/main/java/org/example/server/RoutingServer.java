@@ -0,0 +1,463 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.services.CachingEngine;
+import org.example.services.Graph;
+import org.example.services.HeapDijkstra;
+import org.example.services.IsochroneSearch;
+import org.example.services.KShortestPaths;
+import org.example.services.Metrics;
+import org.example.services.QueryLog;
+import org.example.services.Route;
+import org.example.services.RouteCache;
+import org.example.services.ShortestPathEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Класс RoutingServer предоставляет поиск маршрутов по HTTP для других программ.
+ * Он построен на встроенном в JDK HTTP-сервере и отвечает в формате JSON.
+ *
+ * <p>Доступные запросы:</p>
+ * <ul>
+ *     <li>{@code GET /distance?from=...&to=...} - минимальное время в пути в минутах;</li>
+ *     <li>{@code GET /route?from=...&to=...} - маршрут со списком станций и временем на каждом перегоне;</li>
+ *     <li>{@code GET /routes?from=...&to=...&k=...} - до k альтернативных маршрутов без повторяющихся
+ *     станций по возрастанию времени в пути, по умолчанию 3;</li>
+ *     <li>{@code GET /isochrone?from=...&minutes=...} - все станции, до которых можно доехать не дольше
+ *     заданного времени, по возрастанию времени в пути;</li>
+ *     <li>{@code GET /metrics} - текстовый отчет о метриках {@link Metrics}.</li>
+ * </ul>
+ *
+ * <p>Граф не изменяется после загрузки и читается всеми потоками без блокировок.
+ * Рабочие массивы поиска у каждого потока свои, а найденные маршруты хранятся в общем
+ * кэше {@link RouteCache}, потому что запросы повторяются.</p>
+ *
+ * <p>Граф может заменяться во время работы, например {@link org.example.services.NetworkManager}:
+ * каждый запрос один раз получает текущий граф и выполняется на нем целиком.</p>
+ */
+public class RoutingServer {
+
+    private static final Logger logger = LogManager.getLogger(RoutingServer.class);
+    private static final int ROUTE_CACHE_CAPACITY = 4096;
+    private static final int DEFAULT_ALTERNATIVES = 3;
+    private static final int MAX_ALTERNATIVES = 10;
+    private final Supplier<Graph> graphs;
+    private final Function<Graph, ShortestPathEngine> engineFactory;
+    private final RouteCache routeCache = new RouteCache("route.cache", ROUTE_CACHE_CAPACITY);
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final ThreadLocal<CachingEngine> engines = new ThreadLocal<>();
+    private final ThreadLocal<IsochroneSearch> isochrones = new ThreadLocal<>();
+    private final ThreadLocal<KShortestPaths> alternatives = new ThreadLocal<>();
+
+    /**
+     * Конструктор класса RoutingServer.
+     *
+     * @param graph граф метрополитена.
+     * @param port порт, на котором сервер принимает запросы.
+     * @throws IOException если не удалось открыть порт.
+     */
+    public RoutingServer(Graph graph, int port) throws IOException {
+        this(() -> graph, port);
+    }
+
+    /**
+     * Конструктор класса RoutingServer для графа, который может заменяться во время работы.
+     *
+     * @param graphs источник текущего графа метрополитена; вызывается один раз на запрос и не должен блокироваться.
+     * @param port порт, на котором сервер принимает запросы.
+     * @throws IOException если не удалось открыть порт.
+     */
+    public RoutingServer(Supplier<Graph> graphs, int port) throws IOException {
+        this(graphs, HeapDijkstra::new, port);
+    }
+
+    /**
+     * Конструктор класса RoutingServer с заданным алгоритмом поиска, например
+     * {@link org.example.services.HierarchyDijkstra} для больших сетей.
+     *
+     * @param graphs источник текущего графа метрополитена; вызывается один раз на запрос и не должен блокироваться.
+     * @param engineFactory создает поиск для графа; вызывается в каждом рабочем потоке при первом запросе
+     *                      и после замены графа.
+     * @param port порт, на котором сервер принимает запросы.
+     * @throws IOException если не удалось открыть порт.
+     */
+    public RoutingServer(Supplier<Graph> graphs, Function<Graph, ShortestPathEngine> engineFactory, int port) throws IOException {
+        this.graphs = graphs;
+        this.engineFactory = engineFactory;
+        // Без TCP_NODELAY ответы на запросы в рамках одного соединения задерживаются на ~40 мс
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        // Потоки платформы: проект собирается под JDK 17, где виртуальных потоков нет
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        server.setExecutor(workers);
+        server.createContext("/distance", exchange -> handle(exchange, false));
+        server.createContext("/route", exchange -> handle(exchange, true));
+        server.createContext("/routes", this::handleAlternatives);
+        server.createContext("/isochrone", this::handleIsochrone);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Запускает прием запросов.
+     */
+    public void start() {
+        server.start();
+        logger.info("Сервер маршрутов запущен на порту {}.", server.getAddress().getPort());
+    }
+
+    /**
+     * Останавливает прием запросов и рабочие потоки.
+     */
+    public void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+        logger.info("Сервер маршрутов остановлен.");
+    }
+
+    /**
+     * Обрабатывает запрос расстояния или маршрута.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @param fullRoute true для запроса маршрута, false для запроса расстояния.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private void handle(HttpExchange exchange, boolean fullRoute) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Поддерживается только метод GET."));
+                return;
+            }
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (parameters == null) {
+                send(exchange, 400, error("Некорректная строка параметров запроса."));
+                return;
+            }
+            String from = parameters.get("from");
+            String to = parameters.get("to");
+            if (from == null || to == null || from.isBlank() || to.isBlank()) {
+                send(exchange, 400, error("Заполните параметры from и to."));
+                return;
+            }
+            Graph graph = graphs.get();
+            int departureIdx = graph.stationIndex.indexOf(from);
+            int arrivalIdx = graph.stationIndex.indexOf(to);
+            if (departureIdx == -1 || arrivalIdx == -1) {
+                send(exchange, 404, error("Станция '" + (departureIdx == -1 ? from : to) + "' не найдена."));
+                return;
+            }
+            ShortestPathEngine engine = engineFor(graph);
+            long start = System.nanoTime();
+            String body;
+            int minutes;
+            if (fullRoute) {
+                Route route = engine.route(departureIdx, arrivalIdx);
+                minutes = route.totalMinutes;
+                body = routeJson(graph, route, departureIdx, arrivalIdx);
+            } else {
+                minutes = engine.distance(departureIdx, arrivalIdx);
+                body = distanceJson(graph, minutes, departureIdx, arrivalIdx);
+            }
+            QueryLog.summary("http", departureIdx, arrivalIdx, minutes, System.nanoTime() - start);
+            send(exchange, 200, body);
+        } catch (RuntimeException e) {
+            sendInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Возвращает поиск текущего потока для указанного графа, создавая его заново,
+     * если граф был заменен.
+     *
+     * @param graph граф, на котором выполняется запрос.
+     * @return поиск маршрутов.
+     */
+    private ShortestPathEngine engineFor(Graph graph) {
+        CachingEngine engine = engines.get();
+        if (engine == null || !engine.isFor(graph)) {
+            engine = new CachingEngine(routeCache, graph, engineFactory.apply(graph));
+            engines.set(engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Обрабатывает запрос альтернативных маршрутов.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private void handleAlternatives(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Поддерживается только метод GET."));
+                return;
+            }
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (parameters == null) {
+                send(exchange, 400, error("Некорректная строка параметров запроса."));
+                return;
+            }
+            String from = parameters.get("from");
+            String to = parameters.get("to");
+            String count = parameters.getOrDefault("k", Integer.toString(DEFAULT_ALTERNATIVES));
+            if (from == null || to == null || from.isBlank() || to.isBlank()) {
+                send(exchange, 400, error("Заполните параметры from и to."));
+                return;
+            }
+            if (!count.matches("\\d{1,2}") || Integer.parseInt(count) < 1 || Integer.parseInt(count) > MAX_ALTERNATIVES) {
+                send(exchange, 400, error("Количество маршрутов k должно быть от 1 до " + MAX_ALTERNATIVES + "."));
+                return;
+            }
+            Graph graph = graphs.get();
+            int departureIdx = graph.stationIndex.indexOf(from);
+            int arrivalIdx = graph.stationIndex.indexOf(to);
+            if (departureIdx == -1 || arrivalIdx == -1) {
+                send(exchange, 404, error("Станция '" + (departureIdx == -1 ? from : to) + "' не найдена."));
+                return;
+            }
+            KShortestPaths search = alternatives.get();
+            if (search == null || !search.isFor(graph)) {
+                search = new KShortestPaths(graph);
+                alternatives.set(search);
+            }
+            List<Route> routes = search.routes(departureIdx, arrivalIdx, Integer.parseInt(count));
+            StringBuilder json = new StringBuilder(256 * routes.size() + 2).append('[');
+            for (int i = 0; i < routes.size(); i++) {
+                json.append(i > 0 ? "," : "").append(routeJson(graph, routes.get(i), departureIdx, arrivalIdx));
+            }
+            send(exchange, 200, json.append(']').toString());
+        } catch (RuntimeException e) {
+            sendInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Обрабатывает запрос станций, достижимых за заданное время.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private void handleIsochrone(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Поддерживается только метод GET."));
+                return;
+            }
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (parameters == null) {
+                send(exchange, 400, error("Некорректная строка параметров запроса."));
+                return;
+            }
+            String from = parameters.get("from");
+            String minutes = parameters.get("minutes");
+            if (from == null || minutes == null || from.isBlank() || !minutes.matches("\\d{1,6}")) {
+                send(exchange, 400, error("Заполните параметр from и целое неотрицательное количество минут minutes."));
+                return;
+            }
+            Graph graph = graphs.get();
+            int departureIdx = graph.stationIndex.indexOf(from);
+            if (departureIdx == -1) {
+                send(exchange, 404, error("Станция '" + from + "' не найдена."));
+                return;
+            }
+            IsochroneSearch search = isochrones.get();
+            if (search == null || !search.isFor(graph)) {
+                search = new IsochroneSearch(graph);
+                isochrones.set(search);
+            }
+            int budgetMinutes = Integer.parseInt(minutes);
+            StringBuilder json = new StringBuilder(256);
+            json.append("{\"from\":").append(quote(graph.stationsNames.get(departureIdx)))
+                    .append(",\"minutes\":").append(budgetMinutes).append(",\"stations\":[");
+            search.forEachReachable(departureIdx, budgetMinutes, (station, stationMinutes) ->
+                    json.append(json.charAt(json.length() - 1) == '[' ? "" : ",")
+                            .append("{\"name\":").append(quote(graph.stationsNames.get(station)))
+                            .append(",\"minutes\":").append(stationMinutes).append('}'));
+            send(exchange, 200, json.append("]}").toString());
+        } catch (RuntimeException e) {
+            sendInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Обрабатывает запрос отчета о метриках.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, Metrics.get().dump(), "text/plain; charset=utf-8");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Формирует ответ на запрос расстояния.
+     *
+     * @param graph граф, на котором выполнен запрос.
+     * @param minutes время в пути.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции прибытия.
+     * @return JSON-ответ.
+     */
+    private static String distanceJson(Graph graph, int minutes, int departureIdx, int arrivalIdx) {
+        return "{\"from\":" + quote(graph.stationsNames.get(departureIdx))
+                + ",\"to\":" + quote(graph.stationsNames.get(arrivalIdx))
+                + ",\"minutes\":" + (minutes == ShortestPathEngine.UNREACHABLE ? "null" : Integer.toString(minutes)) + "}";
+    }
+
+    /**
+     * Формирует ответ на запрос маршрута.
+     *
+     * @param graph граф, на котором выполнен запрос.
+     * @param route найденный маршрут.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции прибытия.
+     * @return JSON-ответ.
+     */
+    private static String routeJson(Graph graph, Route route, int departureIdx, int arrivalIdx) {
+        StringBuilder json = new StringBuilder(64 + 32 * route.stations.length);
+        json.append("{\"from\":").append(quote(graph.stationsNames.get(departureIdx)))
+                .append(",\"to\":").append(quote(graph.stationsNames.get(arrivalIdx)))
+                .append(",\"minutes\":").append(route.isFound() ? Integer.toString(route.totalMinutes) : "null")
+                .append(",\"stations\":[");
+        for (int i = 0; i < route.stationsNames.size(); i++) {
+            json.append(i > 0 ? "," : "").append(quote(route.stationsNames.get(i)));
+        }
+        json.append("],\"segments\":[");
+        for (int i = 0; i < route.segmentMinutes.length; i++) {
+            json.append(i > 0 ? "," : "").append(route.segmentMinutes[i]);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Разбирает строку параметров запроса.
+     *
+     * @param rawQuery строка параметров в URL-кодировке или null.
+     * @return параметры запроса или null, если строка содержит некорректную URL-кодировку.
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        try {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Некорректная строка параметров '{}': {}", rawQuery, e.getMessage());
+            }
+            return null;
+        }
+        return parameters;
+    }
+
+    /**
+     * Записывает непредвиденную ошибку в журнал вместе со стеком вызовов и отвечает
+     * клиенту кодом 500, если ответ еще не начат.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @param e непредвиденная ошибка.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private static void sendInternalError(HttpExchange exchange, RuntimeException e) throws IOException {
+        logger.error("Ошибка обработки запроса.", e);
+        if (exchange.getResponseCode() == -1) {
+            send(exchange, 500, error("Внутренняя ошибка сервера."));
+        }
+    }
+
+    /**
+     * Формирует JSON-ответ с сообщением об ошибке.
+     *
+     * @param message текст ошибки.
+     * @return JSON-ответ.
+     */
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /**
+     * Заключает строку в кавычки с экранированием специальных символов JSON.
+     *
+     * @param value строка.
+     * @return строка в формате JSON.
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Отправляет ответ в формате JSON.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @param status код ответа.
+     * @param body тело ответа.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, body, "application/json; charset=utf-8");
+    }
+
+    /**
+     * Отправляет ответ с указанным типом содержимого.
+     *
+     * @param exchange HTTP-запрос и ответ.
+     * @param status код ответа.
+     * @param body тело ответа.
+     * @param contentType значение заголовка Content-Type.
+     * @throws IOException если не удалось отправить ответ.
+     */
+    private static void send(HttpExchange exchange, int status, String body, String contentType) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+}
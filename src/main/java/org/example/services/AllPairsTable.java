@@ -0,0 +1,279 @@
+package org.example.services;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс AllPairsTable хранит заранее вычисленные минимальные расстояния и следующие
+ * станции маршрута для всех пар станций графа. После построения таблицы расстояние
+ * находится одним обращением к массиву, а маршрут - проходом по следующим станциям.
+ *
+ * <p>Таблицы хранятся в плоских массивах размером V × V, упорядоченных по станции
+ * назначения: элемент {@code arrivalIdx * V + departureIdx} содержит расстояние от станции
+ * отправления до станции назначения и следующую станцию на пути к ней. Граф
+ * неориентированный, поэтому предшественник станции в дереве кратчайших путей
+ * с корнем в станции назначения и есть следующая станция маршрута.</p>
+ *
+ * <p>Таблицы строятся параллельно в пуле ForkJoin: для каждой станции выполняется
+ * один поиск {@link HeapDijkstra}. Построенные таблицы можно сохранить в двоичный файл
+ * и при следующем запуске загрузить через отображение файла в память, если отпечаток
+ * графа не изменился.</p>
+ */
+public class AllPairsTable implements ShortestPathEngine {
+
+    private static final Logger logger = LogManager.getLogger(AllPairsTable.class);
+    private static final int MAGIC = 0x53415054; // "SAPT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+    private static final int CHUNK_INTS = 1 << 28;
+    private static final int SOURCES_PER_TASK = 16;
+    private final Graph graph;
+    private final int numOfStations;
+    private final int[] distances;
+    private final int[] nextHops;
+
+    /**
+     * Конструктор класса AllPairsTable.
+     *
+     * @param graph граф, для которого построены таблицы.
+     * @param distances таблица расстояний.
+     * @param nextHops таблица следующих станций маршрута.
+     */
+    private AllPairsTable(Graph graph, int[] distances, int[] nextHops) {
+        this.graph = graph;
+        this.numOfStations = graph.numOfTheStations;
+        this.distances = distances;
+        this.nextHops = nextHops;
+    }
+
+    /**
+     * Строит таблицы расстояний и следующих станций для всех пар станций графа,
+     * распределяя поиски по всем ядрам процессора.
+     *
+     * @param graph граф метрополитена.
+     * @return построенная таблица.
+     * @throws IllegalArgumentException если граф слишком велик для таблицы V × V.
+     */
+    public static AllPairsTable build(Graph graph) {
+        int numOfStations = graph.numOfTheStations;
+        if ((long) numOfStations * numOfStations > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Граф из " + numOfStations + " станций слишком велик для таблицы всех пар.");
+        }
+        logger.info("Начато построение таблицы расстояний для всех пар станций.");
+        long start = System.nanoTime();
+        int[] distances = new int[numOfStations * numOfStations];
+        int[] nextHops = new int[numOfStations * numOfStations];
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new BuildTask(graph, distances, nextHops, 0, numOfStations));
+        } finally {
+            pool.shutdown();
+        }
+        logger.info("Таблица расстояний построена за {} мс.", (System.nanoTime() - start) / 1_000_000);
+        return new AllPairsTable(graph, distances, nextHops);
+    }
+
+    /**
+     * Загружает таблицу из файла, если он построен для того же графа, иначе строит
+     * таблицу заново и сохраняет ее в файл. Ошибка сохранения не прерывает работу.
+     *
+     * @param graph граф метрополитена.
+     * @param snapshot путь к файлу с сохраненной таблицей.
+     * @return таблица для указанного графа.
+     */
+    public static AllPairsTable loadOrBuild(Graph graph, Path snapshot) {
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                AllPairsTable table = load(graph, snapshot);
+                if (table != null) {
+                    Metrics.counter("allpairs.snapshot.hit").increment();
+                    return table;
+                }
+                logger.info("Файл {} построен для другого графа, таблица будет построена заново.", snapshot);
+            } catch (IOException e) {
+                logger.warn("Не удалось прочитать файл {}: {}", snapshot, e.getMessage());
+            }
+        }
+        Metrics.counter("allpairs.snapshot.miss").increment();
+        AllPairsTable table = build(graph);
+        try {
+            table.save(snapshot);
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить таблицу в файл {}: {}", snapshot, e.getMessage());
+        }
+        return table;
+    }
+
+    /**
+     * Загружает таблицу из файла, отображая его в память.
+     *
+     * @param graph граф, для которого загружается таблица.
+     * @param snapshot путь к файлу с сохраненной таблицей.
+     * @return загруженная таблица или null, если файл построен для другого графа.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static AllPairsTable load(Graph graph, Path snapshot) throws IOException {
+        int numOfStations = graph.numOfTheStations;
+        int cells = numOfStations * numOfStations;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + 8L * cells) {
+                return null;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != numOfStations || header.getLong() != graph.fingerprint()) {
+                return null;
+            }
+            int[] distances = new int[cells];
+            int[] nextHops = new int[cells];
+            transfer(channel, FileChannel.MapMode.READ_ONLY, HEADER_BYTES, distances);
+            transfer(channel, FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 4L * cells, nextHops);
+            logger.info("Таблица расстояний загружена из файла {}.", snapshot);
+            return new AllPairsTable(graph, distances, nextHops);
+        }
+    }
+
+    /**
+     * Сохраняет таблицу в двоичный файл через отображение файла в память.
+     * Файл содержит заголовок с отпечатком графа, таблицу расстояний и таблицу следующих станций.
+     *
+     * @param snapshot путь к файлу.
+     * @throws IOException если файл не удалось записать.
+     */
+    public void save(Path snapshot) throws IOException {
+        if (snapshot.getParent() != null) {
+            Files.createDirectories(snapshot.getParent());
+        }
+        int cells = distances.length;
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(numOfStations).putLong(graph.fingerprint());
+            header.force();
+            transfer(channel, FileChannel.MapMode.READ_WRITE, HEADER_BYTES, distances);
+            transfer(channel, FileChannel.MapMode.READ_WRITE, HEADER_BYTES + 4L * cells, nextHops);
+        }
+        // Файл заменяется целиком, чтобы при сбое не осталось частично записанной таблицы
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Таблица расстояний сохранена в файл {}.", snapshot);
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями по таблице.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        return distances[arrivalIdx * numOfStations + departureIdx];
+    }
+
+    /**
+     * Восстанавливает маршрут между двумя станциями по таблице следующих станций.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        int row = arrivalIdx * numOfStations;
+        if (distances[row + departureIdx] == UNREACHABLE) {
+            return Route.notFound();
+        }
+        int count = 1;
+        for (int station = departureIdx; station != arrivalIdx; station = nextHops[row + station]) {
+            count++;
+        }
+        int[] stations = new int[count];
+        stations[0] = departureIdx;
+        for (int i = 1; i < count; i++) {
+            stations[i] = nextHops[row + stations[i - 1]];
+        }
+        int[] segmentMinutes = new int[stations.length - 1];
+        for (int i = 0; i < segmentMinutes.length; i++) {
+            segmentMinutes[i] = distances[row + stations[i]] - distances[row + stations[i + 1]];
+        }
+        return new Route(stations, Route.namesOf(graph, stations), segmentMinutes, distances[row + departureIdx]);
+    }
+
+    /**
+     * Копирует массив в файл или из файла по частям, каждая из которых отображается в память отдельно.
+     *
+     * @param channel канал файла.
+     * @param mode режим отображения: READ_ONLY для чтения в массив, READ_WRITE для записи из массива.
+     * @param position смещение начала массива в файле.
+     * @param array массив для чтения или записи.
+     * @throws IOException если отображение не удалось.
+     */
+    private static void transfer(FileChannel channel, FileChannel.MapMode mode, long position, int[] array) throws IOException {
+        for (int offset = 0; offset < array.length; offset += CHUNK_INTS) {
+            int length = Math.min(CHUNK_INTS, array.length - offset);
+            MappedByteBuffer buffer = channel.map(mode, position + 4L * offset, 4L * length);
+            IntBuffer ints = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            if (mode == FileChannel.MapMode.READ_ONLY) {
+                ints.get(array, offset, length);
+            } else {
+                ints.put(array, offset, length);
+                buffer.force();
+            }
+        }
+    }
+
+    /**
+     * Задача построения строк таблицы для диапазона станций назначения.
+     * Диапазон делится пополам, пока не станет достаточно малым.
+     */
+    private static class BuildTask extends RecursiveAction {
+
+        private final Graph graph;
+        private final int[] distances;
+        private final int[] nextHops;
+        private final int from;
+        private final int to;
+
+        BuildTask(Graph graph, int[] distances, int[] nextHops, int from, int to) {
+            this.graph = graph;
+            this.distances = distances;
+            this.nextHops = nextHops;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildTask(graph, distances, nextHops, from, middle),
+                        new BuildTask(graph, distances, nextHops, middle, to));
+                return;
+            }
+            int numOfStations = graph.numOfTheStations;
+            HeapDijkstra engine = new HeapDijkstra(graph);
+            int[] rowDistances = new int[numOfStations];
+            int[] rowPrevious = new int[numOfStations];
+            for (int arrivalIdx = from; arrivalIdx < to; arrivalIdx++) {
+                engine.shortestPaths(arrivalIdx, rowDistances, rowPrevious);
+                System.arraycopy(rowDistances, 0, distances, arrivalIdx * numOfStations, numOfStations);
+                System.arraycopy(rowPrevious, 0, nextHops, arrivalIdx * numOfStations, numOfStations);
+            }
+        }
+    }
+}
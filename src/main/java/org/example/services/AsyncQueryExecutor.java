@@ -0,0 +1,113 @@
+package org.example.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс AsyncQueryExecutor выполняет запросы маршрутов в фоновых потоках, чтобы поток
+ * интерфейса не блокировался на время поиска. Результат передается через исполнитель
+ * обратных вызовов, например {@code Platform::runLater} в JavaFX.
+ *
+ * <p>Важен только последний запрос: новый запрос или вызов {@link #cancel()} отменяет
+ * выполняющийся запрос, а результат отмененного запроса никогда не передается,
+ * даже если он успел вычислиться.</p>
+ *
+ * <p>Отмена прерывает поток выполняющегося запроса. Поиск {@link HeapDijkstra}, которым
+ * интерфейс ищет маршруты без таблицы расстояний, проверяет прерывание и сразу
+ * прекращается, поэтому устаревшие поиски не занимают фоновые потоки, пока последний
+ * запрос ждет в очереди. Запрос, который не проверяет прерывание, выполняется до конца,
+ * но его результат также не передается.</p>
+ */
+public class AsyncQueryExecutor implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(AsyncQueryExecutor.class);
+    private static final int WORKER_THREADS = 2;
+    private final Executor callbackExecutor;
+    private final ExecutorService workers;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Future<?>> current = new AtomicReference<>();
+
+    /**
+     * Конструктор класса AsyncQueryExecutor.
+     *
+     * @param callbackExecutor исполнитель, в котором вызываются обработчики результата и ошибки.
+     */
+    public AsyncQueryExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "route-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(WORKER_THREADS, threadFactory);
+    }
+
+    /**
+     * Запускает запрос в фоновом потоке, отменяя предыдущий запрос.
+     *
+     * @param query вычисляемый запрос.
+     * @param onSuccess обработчик результата; вызывается, только если запрос не был отменен.
+     * @param onError обработчик ошибки; вызывается, только если запрос не был отменен.
+     * @param <T> тип результата запроса.
+     */
+    public <T> void submit(Callable<T> query, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        long id = generation.incrementAndGet();
+        Future<?> future = workers.submit(() -> {
+            if (generation.get() != id) {
+                return; // Запрос отменен, пока ждал в очереди
+            }
+            try {
+                T result = query.call();
+                callbackExecutor.execute(() -> {
+                    if (generation.get() == id) {
+                        onSuccess.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                callbackExecutor.execute(() -> {
+                    if (generation.get() == id) {
+                        onError.accept(e);
+                    }
+                });
+            }
+        });
+        Future<?> previous = current.getAndSet(future);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+    }
+
+    /**
+     * Отменяет выполняющийся запрос. Его результат не будет передан обработчику.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        Future<?> previous = current.getAndSet(null);
+        if (previous != null && previous.cancel(true)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Выполняющийся запрос отменен.");
+            }
+        }
+    }
+
+    /**
+     * Отменяет выполняющийся запрос и останавливает фоновые потоки.
+     */
+    @Override
+    public void close() {
+        cancel();
+        workers.shutdownNow();
+    }
+}
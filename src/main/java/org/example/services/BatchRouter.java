@@ -0,0 +1,271 @@
+package org.example.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс BatchRouter рассчитывает время в пути для большого количества пар станций
+ * без графического интерфейса. Пары читаются построчно в формате
+ * {@code станция отправления,станция прибытия}, результат записывается в CSV
+ * в формате {@code станция отправления,станция прибытия,минуты} в том же порядке.
+ *
+ * <p>Пары обрабатываются блоками фиксированного размера, поэтому расход памяти
+ * не зависит от размера входных данных. Внутри блока пары группируются по станции
+ * отправления: для каждой станции выполняется один поиск до всех станций, и группы
+ * распределяются по ядрам процессора в пуле ForkJoin.</p>
+ *
+ * <p>Строка результата всегда содержит три поля. Если станция не найдена, поля станций
+ * повторяют текст исходной строки до первой запятой и после нее (без запятой второе поле
+ * пустое, лишние поля отбрасываются), а вместо минут записывается пустое значение.
+ * Недостижимая станция также обозначается пустым значением.</p>
+ */
+public class BatchRouter {
+
+    private static final Logger logger = LogManager.getLogger(BatchRouter.class);
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int GROUPS_PER_TASK = 8;
+    private static final int NO_STATION = -1;
+    private final Graph graph;
+    private final int chunkSize;
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Конструктор класса BatchRouter с размером блока по умолчанию.
+     *
+     * @param graph граф метрополитена.
+     */
+    public BatchRouter(Graph graph) {
+        this(graph, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Конструктор класса BatchRouter.
+     *
+     * @param graph граф метрополитена.
+     * @param chunkSize количество пар, которые одновременно находятся в памяти.
+     */
+    public BatchRouter(Graph graph, int chunkSize) {
+        this.graph = graph;
+        this.chunkSize = chunkSize;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(graph));
+    }
+
+    /**
+     * Читает пары станций, рассчитывает время в пути и записывает результат.
+     *
+     * @param input источник пар станций.
+     * @param output приемник результата; не закрывается, но сбрасывается по окончании.
+     * @return количество обработанных пар.
+     * @throws IOException если не удалось прочитать пары или записать результат.
+     */
+    public long run(BufferedReader input, Writer output) throws IOException {
+        logger.info("Начат пакетный расчет маршрутов.");
+        long start = System.nanoTime();
+        int[] departures = new int[chunkSize];
+        int[] arrivals = new int[chunkSize];
+        int[] minutes = new int[chunkSize];
+        int[] order = new int[chunkSize];
+        int[] groupStarts = new int[graph.numOfTheStations + 1];
+        Map<Integer, String> invalidLines = new HashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        long total = 0;
+        try {
+            output.write("departure,arrival,minutes\n");
+            while (true) {
+                invalidLines.clear();
+                int count = readChunk(input, departures, arrivals, invalidLines);
+                if (count == 0) {
+                    break;
+                }
+                int numOfGroups = groupBySource(departures, count, order, groupStarts);
+                pool.invoke(new GroupTask(departures, arrivals, minutes, order, groupStarts, 0, numOfGroups));
+                writeChunk(output, departures, arrivals, minutes, count, invalidLines);
+                total += count;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        output.flush();
+        logger.info("Пакетный расчет завершен: {} пар за {} мс.", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Читает очередной блок пар станций. Пустые строки пропускаются.
+     *
+     * @param input источник пар станций.
+     * @param departures массив для индексов станций отправления.
+     * @param arrivals массив для индексов станций прибытия.
+     * @param invalidLines поля станций строк с ненайденными станциями по их номеру в блоке.
+     * @return количество прочитанных пар; 0, если данные закончились.
+     * @throws IOException если не удалось прочитать данные.
+     */
+    private int readChunk(BufferedReader input, int[] departures, int[] arrivals, Map<Integer, String> invalidLines) throws IOException {
+        int count = 0;
+        String line;
+        while (count < chunkSize && (line = input.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            int departure = comma < 0 ? NO_STATION : graph.stationIndex.indexOf(line.substring(0, comma));
+            int arrival = comma < 0 ? NO_STATION : graph.stationIndex.indexOf(line.substring(comma + 1));
+            if (departure == NO_STATION || arrival == NO_STATION) {
+                logger.warn("Станция не найдена в строке '{}'.", line);
+                invalidLines.put(count, stationFields(line, comma));
+                departure = NO_STATION;
+            }
+            departures[count] = departure;
+            arrivals[count++] = arrival;
+        }
+        return count;
+    }
+
+    /**
+     * Выделяет из строки с ненайденной станцией два поля станций, разделенные запятой.
+     *
+     * @param line исходная строка.
+     * @param comma позиция первой запятой или -1, если запятой нет.
+     * @return поля станций отправления и прибытия через запятую.
+     */
+    private static String stationFields(String line, int comma) {
+        if (comma < 0) {
+            return line + ",";
+        }
+        int end = line.indexOf(',', comma + 1);
+        return end < 0 ? line : line.substring(0, end);
+    }
+
+    /**
+     * Упорядочивает пары блока по станции отправления сортировкой подсчетом.
+     *
+     * @param departures индексы станций отправления.
+     * @param count количество пар в блоке.
+     * @param order массив, в который записываются номера пар, упорядоченные по станции отправления.
+     * @param groupStarts массив, в который записываются начала групп в массиве order.
+     * @return количество групп, включая пустые.
+     */
+    private int groupBySource(int[] departures, int count, int[] order, int[] groupStarts) {
+        int numOfStations = graph.numOfTheStations;
+        Arrays.fill(groupStarts, 0);
+        for (int i = 0; i < count; i++) {
+            if (departures[i] != NO_STATION) {
+                groupStarts[departures[i] + 1]++;
+            }
+        }
+        for (int v = 0; v < numOfStations; v++) {
+            groupStarts[v + 1] += groupStarts[v];
+        }
+        int[] position = Arrays.copyOf(groupStarts, numOfStations);
+        for (int i = 0; i < count; i++) {
+            if (departures[i] != NO_STATION) {
+                order[position[departures[i]]++] = i;
+            }
+        }
+        return numOfStations;
+    }
+
+    /**
+     * Записывает результат блока в исходном порядке пар.
+     *
+     * @param output приемник результата.
+     * @param departures индексы станций отправления.
+     * @param arrivals индексы станций прибытия.
+     * @param minutes рассчитанное время в пути.
+     * @param count количество пар в блоке.
+     * @param invalidLines поля станций строк с ненайденными станциями.
+     * @throws IOException если не удалось записать результат.
+     */
+    private void writeChunk(Writer output, int[] departures, int[] arrivals, int[] minutes, int count,
+                            Map<Integer, String> invalidLines) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (departures[i] == NO_STATION) {
+                output.write(invalidLines.get(i));
+                output.write(",\n");
+                continue;
+            }
+            output.write(graph.stationsNames.get(departures[i]));
+            output.write(',');
+            output.write(graph.stationsNames.get(arrivals[i]));
+            output.write(',');
+            if (minutes[i] != ShortestPathEngine.UNREACHABLE) {
+                output.write(Integer.toString(minutes[i]));
+            }
+            output.write('\n');
+        }
+    }
+
+    /**
+     * Рабочие массивы одного потока: поиск и массивы расстояний до всех станций.
+     */
+    private static class Workspace {
+
+        private final HeapDijkstra engine;
+        private final int[] distances;
+        private final int[] previous;
+
+        Workspace(Graph graph) {
+            engine = new HeapDijkstra(graph);
+            distances = new int[graph.numOfTheStations];
+            previous = new int[graph.numOfTheStations];
+        }
+    }
+
+    /**
+     * Задача расчета диапазона групп пар с общей станцией отправления.
+     * Диапазон делится пополам, пока не станет достаточно малым.
+     */
+    private class GroupTask extends RecursiveAction {
+
+        private final int[] departures;
+        private final int[] arrivals;
+        private final int[] minutes;
+        private final int[] order;
+        private final int[] groupStarts;
+        private final int from;
+        private final int to;
+
+        GroupTask(int[] departures, int[] arrivals, int[] minutes, int[] order, int[] groupStarts, int from, int to) {
+            this.departures = departures;
+            this.arrivals = arrivals;
+            this.minutes = minutes;
+            this.order = order;
+            this.groupStarts = groupStarts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GROUPS_PER_TASK && groupStarts[to] - groupStarts[from] > GROUPS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GroupTask(departures, arrivals, minutes, order, groupStarts, from, middle),
+                        new GroupTask(departures, arrivals, minutes, order, groupStarts, middle, to));
+                return;
+            }
+            Workspace workspace = workspaces.get();
+            for (int group = from; group < to; group++) {
+                int size = groupStarts[group + 1] - groupStarts[group];
+                if (size == 1) {
+                    // Для одной пары выгоднее поиск с ранней остановкой
+                    int pair = order[groupStarts[group]];
+                    minutes[pair] = workspace.engine.distance(departures[pair], arrivals[pair]);
+                } else if (size > 1) {
+                    workspace.engine.shortestPaths(group, workspace.distances, workspace.previous);
+                    for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                        minutes[order[i]] = workspace.distances[arrivals[order[i]]];
+                    }
+                }
+            }
+        }
+    }
+}
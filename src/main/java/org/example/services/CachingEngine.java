@@ -0,0 +1,62 @@
+package org.example.services;
+
+/**
+ * Класс CachingEngine - поиск маршрутов, который сначала обращается к общему кэшу
+ * {@link RouteCache} и только при промахе выполняет поиск другим алгоритмом.
+ *
+ * <p>Кэш потокобезопасен и используется всеми потоками, а вложенный поиск, как и другие
+ * реализации {@link ShortestPathEngine}, у каждого потока должен быть свой.</p>
+ */
+public class CachingEngine implements ShortestPathEngine {
+
+    private final RouteCache cache;
+    private final Graph graph;
+    private final ShortestPathEngine engine;
+
+    /**
+     * Конструктор класса CachingEngine.
+     *
+     * @param cache общий кэш маршрутов.
+     * @param graph граф, на котором работает вложенный поиск.
+     * @param engine поиск, который выполняется при промахе кэша.
+     */
+    public CachingEngine(RouteCache cache, Graph graph, ShortestPathEngine engine) {
+        this.cache = cache;
+        this.graph = graph;
+        this.engine = engine;
+    }
+
+    /**
+     * Проверяет, работает ли поиск на указанном графе.
+     *
+     * @param graph граф.
+     * @return true, если поиск создан для этого графа.
+     */
+    public boolean isFor(Graph graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями по маршруту из кэша.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        return cache.route(graph, engine, departureIdx, arrivalIdx).totalMinutes;
+    }
+
+    /**
+     * Находит маршрут между двумя станциями в кэше или вложенным поиском.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        return cache.route(graph, engine, departureIdx, arrivalIdx);
+    }
+}
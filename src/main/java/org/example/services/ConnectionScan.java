@@ -0,0 +1,171 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс ConnectionScan находит самое раннее время прибытия по расписанию {@link Timetable}
+ * алгоритмом Connection Scan (CSA): отправления просматриваются один раз в порядке времени
+ * отправления, начиная с момента выезда, и каждое улучшает время прибытия на свою станцию,
+ * если на его станцию отправления можно успеть или пассажир уже едет этим рейсом.
+ *
+ * <p>Просмотр прекращается, как только отправления становятся позже уже найденного времени
+ * прибытия на станцию назначения. Массивы отправлений плоские и читаются последовательно,
+ * поэтому запрос выполняется за доли миллисекунды. Рабочие массивы выделяются один раз при
+ * создании объекта, поэтому экземпляр не потокобезопасен - каждому потоку нужен свой.</p>
+ *
+ * <p>Время отправления до {@code 03:00} считается ночным временем предыдущих суток движения,
+ * чтобы учитывать поезда, которые идут после полуночи.</p>
+ */
+public class ConnectionScan {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionScan.class);
+    private static final int NONE = -1;
+    private static final LatencyHistogram queryLatency = Metrics.histogram("csa.query");
+    private final Timetable timetable;
+    private final int[] earliest;
+    private final int[] arrivedBy;
+    private final int[] tripBoarding;
+
+    /**
+     * Конструктор класса ConnectionScan.
+     *
+     * @param timetable расписание, по которому выполняется поиск.
+     */
+    public ConnectionScan(Timetable timetable) {
+        this.timetable = timetable;
+        this.earliest = new int[timetable.graph.numOfTheStations];
+        this.arrivedBy = new int[timetable.graph.numOfTheStations];
+        this.tripBoarding = new int[timetable.numOfTrips()];
+    }
+
+    /**
+     * Находит самое раннее время прибытия на станцию назначения.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @param departureTime время выезда в минутах от полуночи.
+     * @return время прибытия в минутах от полуночи начала суток движения
+     *         или {@link ShortestPathEngine#UNREACHABLE}, если в этот день доехать нельзя.
+     */
+    public int earliestArrival(int departureIdx, int arrivalIdx, int departureTime) {
+        return scan(departureIdx, arrivalIdx, serviceTime(departureTime));
+    }
+
+    /**
+     * Находит поездку с самым ранним временем прибытия на станцию назначения.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @param departureTime время выезда в минутах от полуночи.
+     * @return найденная поездка; если доехать нельзя, поездка пустая.
+     */
+    public Journey journey(int departureIdx, int arrivalIdx, int departureTime) {
+        int start = serviceTime(departureTime);
+        int arrival = scan(departureIdx, arrivalIdx, start);
+        if (arrival == ShortestPathEngine.UNREACHABLE) {
+            return Journey.notFound(start);
+        }
+        List<String> names = timetable.graph.stationsNames;
+        List<Journey.Leg> legs = new ArrayList<>();
+        int station = arrivalIdx;
+        while (station != departureIdx) {
+            int by = arrivedBy[station];
+            if (by >= 0) {
+                int boarding = tripBoarding[timetable.connectionTrips[by]];
+                int from = timetable.departureStations[boarding];
+                String line = timetable.linesNames.get(timetable.tripLines[timetable.connectionTrips[by]]);
+                legs.add(new Journey.Leg(line, names.get(from), names.get(station),
+                        timetable.departureTimes[boarding], timetable.arrivalTimes[by]));
+                station = from;
+            } else {
+                int from = -2 - by;
+                legs.add(new Journey.Leg(null, names.get(from), names.get(station), earliest[from], earliest[station]));
+                station = from;
+            }
+        }
+        Collections.reverse(legs);
+        return new Journey(start, arrival, legs);
+    }
+
+    /**
+     * Просматривает отправления в порядке времени и заполняет самое раннее время прибытия на станции.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @param start время выезда в минутах от полуночи начала суток движения.
+     * @return время прибытия на станцию назначения или {@link ShortestPathEngine#UNREACHABLE}.
+     */
+    private int scan(int departureIdx, int arrivalIdx, int start) {
+        long startNanos = System.nanoTime();
+        Arrays.fill(earliest, ShortestPathEngine.UNREACHABLE);
+        Arrays.fill(arrivedBy, NONE);
+        Arrays.fill(tripBoarding, NONE);
+        earliest[departureIdx] = start;
+        walkFrom(departureIdx, start);
+
+        int[] departureStations = timetable.departureStations;
+        int[] arrivalStations = timetable.arrivalStations;
+        int[] departureTimes = timetable.departureTimes;
+        int[] arrivalTimes = timetable.arrivalTimes;
+        int[] connectionTrips = timetable.connectionTrips;
+        int scanned = 0;
+        for (int c = timetable.firstConnectionAtOrAfter(start); c < departureTimes.length; c++) {
+            if (departureTimes[c] >= earliest[arrivalIdx]) {
+                break;
+            }
+            scanned++;
+            int trip = connectionTrips[c];
+            if (tripBoarding[trip] == NONE) {
+                if (earliest[departureStations[c]] > departureTimes[c]) {
+                    continue; // На станцию отправления к этому поезду не успеть
+                }
+                tripBoarding[trip] = c;
+            }
+            int station = arrivalStations[c];
+            if (arrivalTimes[c] < earliest[station]) {
+                earliest[station] = arrivalTimes[c];
+                arrivedBy[station] = c;
+                walkFrom(station, arrivalTimes[c]);
+            }
+        }
+        queryLatency.record(System.nanoTime() - startNanos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Просмотрено отправлений: {}.", scanned);
+        }
+        return earliest[arrivalIdx];
+    }
+
+    /**
+     * Обновляет время прибытия на станции, до которых можно дойти пешком от указанной станции.
+     *
+     * @param station индекс станции.
+     * @param time время прибытия на станцию.
+     */
+    private void walkFrom(int station, int time) {
+        for (int f = timetable.footpathOffsets[station]; f < timetable.footpathOffsets[station + 1]; f++) {
+            int next = timetable.footpathTargets[f];
+            int candidate = time + timetable.footpathMinutes[f];
+            if (candidate < earliest[next]) {
+                earliest[next] = candidate;
+                arrivedBy[next] = -2 - station;
+            }
+        }
+    }
+
+    /**
+     * Переводит время выезда во время суток движения: время до 03:00 относится
+     * к предыдущим суткам.
+     *
+     * @param departureTime время выезда в минутах от полуночи.
+     * @return время в минутах от полуночи начала суток движения.
+     */
+    private static int serviceTime(int departureTime) {
+        return departureTime < Timetable.SERVICE_DAY_START ? departureTime + Timetable.MINUTES_PER_DAY : departureTime;
+    }
+}
@@ -0,0 +1,667 @@
+package org.example.services;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс ContractionHierarchy - иерархия сжатия (contraction hierarchy) графа метрополитена,
+ * по которой {@link HierarchyDijkstra} находит кратчайшие пути, просматривая лишь малую
+ * часть графа.
+ *
+ * <p>При построении станции по очереди «сжимаются»: станция удаляется из графа, а между
+ * ее соседями добавляются ребра-сокращения (shortcuts), если кратчайший путь между
+ * ними проходил через эту станцию. Номер станции в порядке сжатия - ее ранг. Поиск
+ * выполняется только по ребрам к станциям с большим рангом, одновременно от станции
+ * отправления и от станции назначения.</p>
+ *
+ * <p>Построение выполняется раундами в пуле ForkJoin. В каждом раунде выбираются станции,
+ * приоритет которых меньше, чем у всех соседей (они не соседствуют друг с другом), и для
+ * всех них параллельно ищутся нужные сокращения. Приоритет - разность между количеством
+ * сокращений и количеством ребер станции плюс количество уже сжатых соседей. Сокращение
+ * не добавляется, только если найден строго более короткий обходной путь (witness),
+ * поэтому одновременное сжатие нескольких станций не теряет кратчайших путей.</p>
+ *
+ * <p>Если средняя степень оставшихся станций становится больше {@code CORE_DEGREE_LIMIT},
+ * сжатие прекращается: дальнейшие сокращения стоили бы дороже, чем поиск по ним экономит.
+ * Станции такого ядра получают старшие ранги и все свои ребра внутри ядра, поэтому поиск
+ * в ядре становится обычным двунаправленным поиском Дейкстры.</p>
+ *
+ * <p>Для каждого ребра хранятся концы и вес, а для сокращения - средняя станция и два
+ * ребра, которые оно заменяет, чтобы восстановить полный маршрут. Иерархию можно
+ * сохранить в двоичный файл и загрузить через отображение файла в память, если отпечаток
+ * графа не изменился. Объект не изменяется после создания и может использоваться
+ * из нескольких потоков.</p>
+ */
+public class ContractionHierarchy {
+
+    private static final Logger logger = LogManager.getLogger(ContractionHierarchy.class);
+    private static final int MAGIC = 0x43484353; // "SCHC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 4 + 8;
+    private static final int NONE = -1;
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+    private static final int PRIORITY_SETTLED_LIMIT = 50;
+    private static final int CORE_DEGREE_LIMIT = 12;
+    private static final int NODES_PER_TASK = 256;
+    final Graph graph;
+    final int[] ranks;
+    final int[] upwardOffsets;
+    final int[] upwardTargets;
+    final int[] upwardWeights;
+    final int[] upwardEdges;
+    final int[] edgeFrom;
+    final int[] edgeTo;
+    final int[] edgeWeights;
+    final int[] edgeMiddle;
+    final int[] edgeFirst;
+    final int[] edgeSecond;
+
+    /**
+     * Конструктор класса ContractionHierarchy.
+     *
+     * @param graph исходный граф.
+     * @param arrays массивы иерархии в порядке полей класса, начиная с ranks.
+     */
+    private ContractionHierarchy(Graph graph, int[][] arrays) {
+        this.graph = graph;
+        this.ranks = arrays[0];
+        this.upwardOffsets = arrays[1];
+        this.upwardTargets = arrays[2];
+        this.upwardWeights = arrays[3];
+        this.upwardEdges = arrays[4];
+        this.edgeFrom = arrays[5];
+        this.edgeTo = arrays[6];
+        this.edgeWeights = arrays[7];
+        this.edgeMiddle = arrays[8];
+        this.edgeFirst = arrays[9];
+        this.edgeSecond = arrays[10];
+    }
+
+    /**
+     * Строит иерархию сжатия графа, распределяя вычисления по всем ядрам процессора.
+     *
+     * @param graph граф метрополитена.
+     * @return построенная иерархия.
+     */
+    public static ContractionHierarchy build(Graph graph) {
+        logger.info("Начато построение иерархии сжатия.");
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            ContractionHierarchy hierarchy = new ContractionHierarchy(graph, new Builder(graph, pool).contract());
+            logger.info("Иерархия сжатия построена за {} мс: ребер {}, из них сокращений {}.",
+                    (System.nanoTime() - start) / 1_000_000, hierarchy.edgeFrom.length, hierarchy.numOfShortcuts());
+            return hierarchy;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Загружает иерархию из файла, если он построен для того же графа, иначе строит
+     * иерархию заново и сохраняет ее в файл. Ошибка сохранения не прерывает работу.
+     *
+     * @param graph граф метрополитена.
+     * @param snapshot путь к файлу с сохраненной иерархией.
+     * @return иерархия для указанного графа.
+     */
+    public static ContractionHierarchy loadOrBuild(Graph graph, Path snapshot) {
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                ContractionHierarchy hierarchy = load(graph, snapshot);
+                if (hierarchy != null) {
+                    return hierarchy;
+                }
+                logger.info("Файл {} построен для другого графа, иерархия будет построена заново.", snapshot);
+            } catch (IOException e) {
+                logger.warn("Не удалось прочитать файл {}: {}", snapshot, e.getMessage());
+            }
+        }
+        ContractionHierarchy hierarchy = build(graph);
+        try {
+            hierarchy.save(snapshot);
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить иерархию в файл {}: {}", snapshot, e.getMessage());
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Загружает иерархию из файла, отображая его в память.
+     *
+     * @param graph граф, для которого загружается иерархия.
+     * @param snapshot путь к файлу с сохраненной иерархией.
+     * @return загруженная иерархия или null, если файл построен для другого графа.
+     * @throws IOException если файл не удалось прочитать или он поврежден.
+     */
+    public static ContractionHierarchy load(Graph graph, Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int numOfStations = graph.numOfTheStations;
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != numOfStations) {
+                return null;
+            }
+            int numOfUpward = buffer.getInt();
+            int numOfEdges = buffer.getInt();
+            if (buffer.getLong() != graph.fingerprint() || numOfUpward < 0 || numOfEdges < 0
+                    || channel.size() != HEADER_BYTES + 4L * (2L * numOfStations + 1 + 3L * numOfUpward + 6L * numOfEdges)) {
+                return null;
+            }
+            int[][] arrays = allocate(numOfStations, numOfUpward, numOfEdges);
+            IntBuffer ints = buffer.asIntBuffer();
+            for (int[] array : arrays) {
+                ints.get(array);
+            }
+            logger.info("Иерархия сжатия загружена из файла {}.", snapshot);
+            return new ContractionHierarchy(graph, arrays);
+        }
+    }
+
+    /**
+     * Сохраняет иерархию в двоичный файл через отображение файла в память.
+     * Файл содержит заголовок с отпечатком графа и все массивы иерархии.
+     *
+     * @param snapshot путь к файлу.
+     * @throws IOException если файл не удалось записать.
+     */
+    public void save(Path snapshot) throws IOException {
+        if (snapshot.getParent() != null) {
+            Files.createDirectories(snapshot.getParent());
+        }
+        int[][] arrays = arrays();
+        long size = HEADER_BYTES;
+        for (int[] array : arrays) {
+            size += 4L * array.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Иерархия слишком велика для сохранения в один файл.");
+        }
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(graph.numOfTheStations).putInt(upwardTargets.length)
+                    .putInt(edgeFrom.length).putLong(graph.fingerprint());
+            IntBuffer ints = buffer.asIntBuffer();
+            for (int[] array : arrays) {
+                ints.put(array);
+            }
+            buffer.force();
+        }
+        // Файл заменяется целиком, чтобы при сбое не осталось частично записанной иерархии
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Иерархия сжатия сохранена в файл {}.", snapshot);
+    }
+
+    /**
+     * Возвращает количество ребер-сокращений, добавленных при построении.
+     *
+     * @return количество сокращений.
+     */
+    public int numOfShortcuts() {
+        int shortcuts = 0;
+        for (int middle : edgeMiddle) {
+            if (middle != NONE) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Возвращает второй конец ребра.
+     *
+     * @param edge номер ребра.
+     * @param station один из концов ребра.
+     * @return другой конец ребра.
+     */
+    int otherEnd(int edge, int station) {
+        return edgeFrom[edge] == station ? edgeTo[edge] : edgeFrom[edge];
+    }
+
+    /**
+     * Возвращает массивы иерархии в порядке полей класса.
+     *
+     * @return массивы иерархии.
+     */
+    private int[][] arrays() {
+        return new int[][] {ranks, upwardOffsets, upwardTargets, upwardWeights, upwardEdges,
+                edgeFrom, edgeTo, edgeWeights, edgeMiddle, edgeFirst, edgeSecond};
+    }
+
+    /**
+     * Выделяет массивы иерархии заданных размеров в порядке полей класса.
+     *
+     * @param numOfStations количество станций.
+     * @param numOfUpward количество ребер к станциям с большим рангом.
+     * @param numOfEdges количество ребер вместе с сокращениями.
+     * @return массивы иерархии.
+     */
+    private static int[][] allocate(int numOfStations, int numOfUpward, int numOfEdges) {
+        return new int[][] {new int[numOfStations], new int[numOfStations + 1], new int[numOfUpward],
+                new int[numOfUpward], new int[numOfUpward], new int[numOfEdges], new int[numOfEdges],
+                new int[numOfEdges], new int[numOfEdges], new int[numOfEdges], new int[numOfEdges]};
+    }
+
+    /**
+     * Построитель иерархии. Хранит изменяемый граф из еще не сжатых станций: для каждой
+     * станции - номера ребер к несжатым соседям.
+     */
+    private static class Builder {
+
+        private final Graph graph;
+        private final ForkJoinPool pool;
+        private final int numOfStations;
+        private final int[][] adjacency;
+        private final int[] degrees;
+        private final int[][] upward;
+        private final int[] ranks;
+        private final int[] priorities;
+        private final int[] contractedNeighbors;
+        private final boolean[] contracted;
+        private final ThreadLocal<Witness> witnesses;
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int[] edgeWeights = new int[16];
+        private int[] edgeMiddle = new int[16];
+        private int[] edgeFirst = new int[16];
+        private int[] edgeSecond = new int[16];
+        private int numOfEdges;
+
+        Builder(Graph graph, ForkJoinPool pool) {
+            this.graph = graph;
+            this.pool = pool;
+            this.numOfStations = graph.numOfTheStations;
+            this.adjacency = new int[numOfStations][];
+            this.degrees = new int[numOfStations];
+            this.upward = new int[numOfStations][];
+            this.ranks = new int[numOfStations];
+            this.priorities = new int[numOfStations];
+            this.contractedNeighbors = new int[numOfStations];
+            this.contracted = new boolean[numOfStations];
+            this.witnesses = ThreadLocal.withInitial(() -> new Witness(numOfStations));
+            for (int v = 0; v < numOfStations; v++) {
+                adjacency[v] = new int[Math.max(graph.offsets[v + 1] - graph.offsets[v], 1)];
+            }
+            for (int v = 0; v < numOfStations; v++) {
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    if (v < graph.targets[e]) {
+                        addShortcut(v, graph.targets[e], graph.weights[e], NONE, NONE, NONE);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Сжимает все станции и собирает массивы иерархии.
+         *
+         * @return массивы иерархии в порядке полей {@link ContractionHierarchy}.
+         */
+        int[][] contract() {
+            int[] remaining = new int[numOfStations];
+            Arrays.setAll(remaining, v -> v);
+            int numOfRemaining = numOfStations;
+            parallel(remaining, numOfRemaining, v -> priorities[v] = priority(v));
+
+            int nextRank = 0;
+            int rounds = 0;
+            int[] selected = new int[numOfStations];
+            int[][] shortcuts = new int[numOfStations][];
+            int[] touched = new int[numOfStations];
+            boolean[] isTouched = new boolean[numOfStations];
+            while (numOfRemaining > 0) {
+                rounds++;
+                int numOfSelected = 0;
+                for (int i = 0; i < numOfRemaining; i++) {
+                    if (isLocalMinimum(remaining[i])) {
+                        selected[numOfSelected++] = remaining[i];
+                    }
+                }
+                parallel(selected, numOfSelected, v -> shortcuts[v] = findShortcuts(v, WITNESS_SETTLED_LIMIT));
+
+                int numOfTouched = 0;
+                for (int i = 0; i < numOfSelected; i++) {
+                    int v = selected[i];
+                    ranks[v] = nextRank++;
+                    contracted[v] = true;
+                    upward[v] = Arrays.copyOf(adjacency[v], degrees[v]);
+                    for (int edge : upward[v]) {
+                        int neighbor = otherEnd(edge, v);
+                        disconnect(neighbor, edge);
+                        contractedNeighbors[neighbor]++;
+                        if (!isTouched[neighbor]) {
+                            isTouched[neighbor] = true;
+                            touched[numOfTouched++] = neighbor;
+                        }
+                    }
+                    int[] found = shortcuts[v];
+                    for (int s = 0; s < found.length; s += 5) {
+                        addShortcut(found[s], found[s + 1], found[s + 2], v, found[s + 3], found[s + 4]);
+                    }
+                    shortcuts[v] = null;
+                }
+                parallel(touched, numOfTouched, v -> priorities[v] = priority(v));
+                for (int i = 0; i < numOfTouched; i++) {
+                    isTouched[touched[i]] = false;
+                }
+                int kept = 0;
+                long degreeSum = 0;
+                for (int i = 0; i < numOfRemaining; i++) {
+                    if (!contracted[remaining[i]]) {
+                        degreeSum += degrees[remaining[i]];
+                        remaining[kept++] = remaining[i];
+                    }
+                }
+                numOfRemaining = kept;
+                if (degreeSum > (long) CORE_DEGREE_LIMIT * numOfRemaining) {
+                    // Оставшиеся станции образуют плотное ядро: каждая получает все свои ребра в ядре
+                    for (int i = 0; i < numOfRemaining; i++) {
+                        int v = remaining[i];
+                        ranks[v] = nextRank++;
+                        upward[v] = Arrays.copyOf(adjacency[v], degrees[v]);
+                    }
+                    break;
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Раундов сжатия: {}, станций в ядре: {}.", rounds, numOfRemaining);
+            }
+            return collect();
+        }
+
+        /**
+         * Проверяет, меньше ли приоритет станции, чем у всех ее несжатых соседей.
+         * При равных приоритетах меньшей считается станция с меньшим индексом.
+         *
+         * @param v индекс станции.
+         * @return true, если станцию можно сжимать в текущем раунде.
+         */
+        private boolean isLocalMinimum(int v) {
+            for (int i = 0; i < degrees[v]; i++) {
+                int neighbor = otherEnd(adjacency[v][i], v);
+                if (priorities[neighbor] < priorities[v] || (priorities[neighbor] == priorities[v] && neighbor < v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Вычисляет приоритет сжатия станции. Для оценки количества сокращений
+         * достаточно более короткого поиска обходных путей, чем при самом сжатии.
+         *
+         * @param v индекс станции.
+         * @return приоритет; станции с меньшим приоритетом сжимаются раньше.
+         */
+        private int priority(int v) {
+            return findShortcuts(v, PRIORITY_SETTLED_LIMIT).length / 5 - degrees[v] + contractedNeighbors[v];
+        }
+
+        /**
+         * Находит сокращения, которые нужны при сжатии станции.
+         *
+         * @param v индекс станции.
+         * @param settledLimit наибольшее количество станций, просматриваемых одним поиском обходного пути.
+         * @return сокращения по пять чисел: два конца, вес и два заменяемых ребра.
+         */
+        private int[] findShortcuts(int v, int settledLimit) {
+            Witness witness = witnesses.get();
+            int[] edges = adjacency[v];
+            int degree = degrees[v];
+            int[] found = new int[0];
+            int count = 0;
+            for (int i = 0; i + 1 < degree; i++) {
+                int first = edges[i];
+                int u = otherEnd(first, v);
+                int limit = 0;
+                for (int j = i + 1; j < degree; j++) {
+                    limit = Math.max(limit, edgeWeights[first] + edgeWeights[edges[j]]);
+                    witness.addTarget(otherEnd(edges[j], v));
+                }
+                witness.search(this, u, v, limit, settledLimit);
+                for (int j = i + 1; j < degree; j++) {
+                    int second = edges[j];
+                    int w = otherEnd(second, v);
+                    int weight = edgeWeights[first] + edgeWeights[second];
+                    // Сокращение не нужно, только если обходной путь строго короче
+                    if (w == u || witness.distance(w) < weight) {
+                        continue;
+                    }
+                    if (count + 5 > found.length) {
+                        found = Arrays.copyOf(found, Math.max(10, found.length * 2));
+                    }
+                    found[count++] = u;
+                    found[count++] = w;
+                    found[count++] = weight;
+                    found[count++] = first;
+                    found[count++] = second;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        /**
+         * Добавляет сокращение между несжатыми станциями, если между ними нет ребра
+         * не длиннее. Более длинное ребро между ними удаляется.
+         */
+        private void addShortcut(int u, int w, int weight, int middle, int first, int second) {
+            for (int i = 0; i < degrees[u]; i++) {
+                int edge = adjacency[u][i];
+                if (otherEnd(edge, u) == w) {
+                    if (edgeWeights[edge] <= weight) {
+                        return;
+                    }
+                    disconnect(u, edge);
+                    disconnect(w, edge);
+                    break;
+                }
+            }
+            connect(u, w, weight, middle, first, second);
+        }
+
+        /**
+         * Создает ребро и добавляет его в списки обеих станций.
+         */
+        private void connect(int u, int w, int weight, int middle, int first, int second) {
+            if (numOfEdges == edgeFrom.length) {
+                int capacity = numOfEdges * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+                edgeMiddle = Arrays.copyOf(edgeMiddle, capacity);
+                edgeFirst = Arrays.copyOf(edgeFirst, capacity);
+                edgeSecond = Arrays.copyOf(edgeSecond, capacity);
+            }
+            int edge = numOfEdges++;
+            edgeFrom[edge] = u;
+            edgeTo[edge] = w;
+            edgeWeights[edge] = weight;
+            edgeMiddle[edge] = middle;
+            edgeFirst[edge] = first;
+            edgeSecond[edge] = second;
+            append(u, edge);
+            append(w, edge);
+        }
+
+        private void append(int v, int edge) {
+            if (degrees[v] == adjacency[v].length) {
+                adjacency[v] = Arrays.copyOf(adjacency[v], degrees[v] * 2);
+            }
+            adjacency[v][degrees[v]++] = edge;
+        }
+
+        private void disconnect(int v, int edge) {
+            for (int i = 0; i < degrees[v]; i++) {
+                if (adjacency[v][i] == edge) {
+                    adjacency[v][i] = adjacency[v][--degrees[v]];
+                    return;
+                }
+            }
+        }
+
+        private int otherEnd(int edge, int station) {
+            return edgeFrom[edge] == station ? edgeTo[edge] : edgeFrom[edge];
+        }
+
+        /**
+         * Собирает списки ребер к станциям с большим рангом в сжатый формат.
+         *
+         * @return массивы иерархии в порядке полей {@link ContractionHierarchy}.
+         */
+        private int[][] collect() {
+            int numOfUpward = 0;
+            for (int[] edges : upward) {
+                numOfUpward += edges.length;
+            }
+            int[][] arrays = allocate(numOfStations, numOfUpward, numOfEdges);
+            System.arraycopy(ranks, 0, arrays[0], 0, numOfStations);
+            int position = 0;
+            for (int v = 0; v < numOfStations; v++) {
+                arrays[1][v] = position;
+                for (int edge : upward[v]) {
+                    arrays[2][position] = otherEnd(edge, v);
+                    arrays[3][position] = edgeWeights[edge];
+                    arrays[4][position++] = edge;
+                }
+            }
+            arrays[1][numOfStations] = position;
+            System.arraycopy(edgeFrom, 0, arrays[5], 0, numOfEdges);
+            System.arraycopy(edgeTo, 0, arrays[6], 0, numOfEdges);
+            System.arraycopy(edgeWeights, 0, arrays[7], 0, numOfEdges);
+            System.arraycopy(edgeMiddle, 0, arrays[8], 0, numOfEdges);
+            System.arraycopy(edgeFirst, 0, arrays[9], 0, numOfEdges);
+            System.arraycopy(edgeSecond, 0, arrays[10], 0, numOfEdges);
+            return arrays;
+        }
+
+        /**
+         * Выполняет действие для каждой станции из списка параллельно в пуле ForkJoin.
+         */
+        private void parallel(int[] stations, int count, IntConsumer action) {
+            pool.invoke(new StationsTask(stations, 0, count, action));
+        }
+    }
+
+    /**
+     * Поиск обходного пути (witness) от соседа сжимаемой станции в несжатом графе
+     * без самой станции. Поиск прекращается, когда извлечены все остальные соседи, а также
+     * ограничен по расстоянию и по количеству просмотренных станций: если обходной путь
+     * не найден за это время, добавляется сокращение.
+     */
+    private static class Witness {
+
+        private final int[] distances;
+        private final int[] reached;
+        private final int[] targets;
+        private final boolean[] isTarget;
+        private final IndexedMinHeap heap;
+        private int numOfReached;
+        private int numOfTargets;
+
+        Witness(int numOfStations) {
+            distances = new int[numOfStations];
+            reached = new int[numOfStations];
+            targets = new int[numOfStations];
+            isTarget = new boolean[numOfStations];
+            heap = new IndexedMinHeap(numOfStations);
+            Arrays.fill(distances, ShortestPathEngine.UNREACHABLE);
+        }
+
+        void addTarget(int station) {
+            if (!isTarget[station]) {
+                isTarget[station] = true;
+                targets[numOfTargets++] = station;
+            }
+        }
+
+        void search(Builder builder, int source, int excluded, int limit, int settledLimit) {
+            for (int i = 0; i < numOfReached; i++) {
+                distances[reached[i]] = ShortestPathEngine.UNREACHABLE;
+            }
+            heap.clear();
+            numOfReached = 0;
+            distances[source] = 0;
+            reached[numOfReached++] = source;
+            heap.insertOrDecrease(source, 0);
+            int settled = 0;
+            int remainingTargets = numOfTargets;
+            while (!heap.isEmpty() && remainingTargets > 0 && heap.peekKey() <= limit && settled++ < settledLimit) {
+                int station = heap.pollMin();
+                if (isTarget[station]) {
+                    remainingTargets--;
+                }
+                int[] edges = builder.adjacency[station];
+                for (int i = 0; i < builder.degrees[station]; i++) {
+                    int edge = edges[i];
+                    int next = builder.otherEnd(edge, station);
+                    int candidate = distances[station] + builder.edgeWeights[edge];
+                    if (next != excluded && candidate < distances[next]) {
+                        if (distances[next] == ShortestPathEngine.UNREACHABLE) {
+                            reached[numOfReached++] = next;
+                        }
+                        distances[next] = candidate;
+                        heap.insertOrDecrease(next, candidate);
+                    }
+                }
+            }
+            for (int i = 0; i < numOfTargets; i++) {
+                isTarget[targets[i]] = false;
+            }
+            numOfTargets = 0;
+        }
+
+        int distance(int station) {
+            return distances[station];
+        }
+    }
+
+    /**
+     * Задача выполнения действия для диапазона станций из списка.
+     * Диапазон делится пополам, пока не станет достаточно малым.
+     */
+    private static class StationsTask extends RecursiveAction {
+
+        private final int[] stations;
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        StationsTask(int[] stations, int from, int to, IntConsumer action) {
+            this.stations = stations;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > NODES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StationsTask(stations, from, middle, action), new StationsTask(stations, middle, to, action));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                action.accept(stations[i]);
+            }
+        }
+    }
+}
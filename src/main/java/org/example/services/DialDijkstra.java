@@ -0,0 +1,181 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс DialDijkstra реализует алгоритм Дейкстры с очередью из корзин (алгоритм Дайла).
+ * Он подходит для графов с небольшими целыми весами, такими как время в пути между
+ * соседними станциями в минутах.
+ *
+ * <p>Станции с одинаковым расстоянием хранятся в одной корзине - двусвязном списке.
+ * Так как вес ребра не превышает C, одновременно заняты не более C + 1 корзин, поэтому
+ * корзины используются по кругу. Время поиска составляет O(E + D), где D - расстояние
+ * до станции назначения. Как и {@link HeapDijkstra}, поиск прекращается после того,
+ * как станция назначения извлечена из очереди, а экземпляр не потокобезопасен.</p>
+ */
+public class DialDijkstra implements ShortestPathEngine {
+
+    private static final Logger logger = LogManager.getLogger(DialDijkstra.class);
+    private static final int NONE = -1;
+    private static final int MAX_BUCKETS = 1 << 16;
+    private static final LongAdder searches = Metrics.counter("dijkstra.dial.searches");
+    private static final LongAdder settledStations = Metrics.counter("dijkstra.dial.settled");
+    private static final LongAdder relaxedEdges = Metrics.counter("dijkstra.dial.relaxed");
+    private static final LatencyHistogram searchLatency = Metrics.histogram("dijkstra.dial.search");
+    private final Graph graph;
+    private final int[] distances;
+    private final int[] previous;
+    private final int[] bucketHeads;
+    private final int[] nextInBucket;
+    private final int[] previousInBucket;
+    private final boolean[] queued;
+
+    /**
+     * Конструктор класса DialDijkstra.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     * @throws IllegalArgumentException если наибольший вес ребра слишком велик для очереди из корзин.
+     */
+    public DialDijkstra(Graph graph) {
+        int maxWeight = 0;
+        for (int weight : graph.weights) {
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        if (maxWeight >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Вес ребра " + maxWeight + " слишком велик для алгоритма Дайла.");
+        }
+        this.graph = graph;
+        this.distances = new int[graph.numOfTheStations];
+        this.previous = new int[graph.numOfTheStations];
+        this.bucketHeads = new int[maxWeight + 1];
+        this.nextInBucket = new int[graph.numOfTheStations];
+        this.previousInBucket = new int[graph.numOfTheStations];
+        this.queued = new boolean[graph.numOfTheStations];
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        return distances[arrivalIdx];
+    }
+
+    /**
+     * Находит маршрут с минимальным временем в пути между двумя станциями.
+     * Предшественники станций запоминаются во время того же поиска.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        return Route.fromPredecessors(graph, distances, previous, departureIdx, arrivalIdx);
+    }
+
+    /**
+     * Выполняет поиск от станции отправления, пока не будет извлечена станция назначения.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     */
+    private void search(int departureIdx, int arrivalIdx) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начат поиск минимального расстояния.");
+        }
+        long start = System.nanoTime();
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(bucketHeads, NONE);
+        Arrays.fill(queued, false);
+        distances[departureIdx] = 0;
+        push(departureIdx);
+        int queuedCount = 1;
+        int currentDistance = 0;
+        int settled = 0;
+        int relaxed = 0;
+
+        while (queuedCount > 0) {
+            int bucket = currentDistance % bucketHeads.length;
+            int currentStation = bucketHeads[bucket];
+            if (currentStation == NONE) {
+                currentDistance++;
+                continue;
+            }
+            unlink(currentStation);
+            queuedCount--;
+            settled++;
+            if (currentStation == arrivalIdx) {
+                break;
+            }
+            relaxed += graph.offsets[currentStation + 1] - graph.offsets[currentStation];
+            for (int e = graph.offsets[currentStation]; e < graph.offsets[currentStation + 1]; e++) {
+                int next = graph.targets[e];
+                int candidate = currentDistance + graph.weights[e];
+                if (candidate < distances[next]) {
+                    if (queued[next]) {
+                        unlink(next);
+                    } else {
+                        queuedCount++;
+                    }
+                    distances[next] = candidate;
+                    previous[next] = currentStation;
+                    push(next);
+                }
+            }
+        }
+        searches.increment();
+        settledStations.add(settled);
+        relaxedEdges.add(relaxed);
+        searchLatency.record(System.nanoTime() - start);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Минимальное расстояние найдено и перенаправлено.");
+        }
+    }
+
+    /**
+     * Добавляет станцию в корзину, соответствующую ее текущему расстоянию.
+     *
+     * @param station индекс станции.
+     */
+    private void push(int station) {
+        int bucket = distances[station] % bucketHeads.length;
+        int head = bucketHeads[bucket];
+        nextInBucket[station] = head;
+        previousInBucket[station] = NONE;
+        if (head != NONE) {
+            previousInBucket[head] = station;
+        }
+        bucketHeads[bucket] = station;
+        queued[station] = true;
+    }
+
+    /**
+     * Удаляет станцию из корзины, в которой она находится.
+     *
+     * @param station индекс станции.
+     */
+    private void unlink(int station) {
+        int next = nextInBucket[station];
+        int previous = previousInBucket[station];
+        if (previous != NONE) {
+            nextInBucket[previous] = next;
+        } else {
+            bucketHeads[distances[station] % bucketHeads.length] = next;
+        }
+        if (next != NONE) {
+            previousInBucket[next] = previous;
+        }
+        queued[station] = false;
+    }
+}
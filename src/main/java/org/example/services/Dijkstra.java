@@ -1,7 +1,6 @@
 package org.example.services;
 
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import org.apache.logging.log4j.LogManager;
@@ -37,7 +36,9 @@ public class Dijkstra {
      *         отправления до станции назначения.
      */
     public static String dijkstra(int[][] adjacencyMatrix, int departureIdx, int arrivalIdx) {
-        logger.info("Начат поиск минимального расстояния.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начат поиск минимального расстояния.");
+        }
         int numOfStations = adjacencyMatrix.length;
         int[] distances = initializeDistances(numOfStations, departureIdx);
         boolean[] visited = new boolean[numOfStations];
@@ -47,7 +48,43 @@ public class Dijkstra {
             visited[currentStation] = true;
             updateDistances(adjacencyMatrix, distances, visited, currentStation);
         });
-        logger.info("Минимальное расстояние найдено и перенаправлено.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Минимальное расстояние найдено и перенаправлено.");
+        }
+        return Integer.toString(distances[arrivalIdx]);
+    }
+
+    /**
+     * Находит минимальное расстояние между двумя станциями в графе,
+     * представленном в сжатом формате {@link Graph}, с использованием алгоритма Дейкстры.
+     * В отличие от варианта с матрицей смежности, при обновлении расстояний
+     * просматриваются только соседи текущей станции.
+     *
+     * @param graph граф метрополитена.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return строка, представляющая минимальное расстояние от станции
+     *         отправления до станции назначения.
+     */
+    public static String dijkstra(Graph graph, int departureIdx, int arrivalIdx) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начат поиск минимального расстояния.");
+        }
+        int numOfStations = graph.numOfTheStations;
+        int[] distances = initializeDistances(numOfStations, departureIdx);
+        boolean[] visited = new boolean[numOfStations];
+
+        IntStream.range(0, numOfStations).forEach(val -> {
+            int currentStation = findMinDistanceStation(distances, visited);
+            if (currentStation == -1) {
+                return; // Оставшиеся станции недостижимы
+            }
+            visited[currentStation] = true;
+            updateDistances(graph, distances, visited, currentStation);
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("Минимальное расстояние найдено и перенаправлено.");
+        }
         return Integer.toString(distances[arrivalIdx]);
     }
 
@@ -60,11 +97,15 @@ public class Dijkstra {
      *         расстоянию от станции отправления до соответствующей станции.
      */
     private static int[] initializeDistances(int numOfStations, int departureIdx) {
-        logger.info("Начало инициализации расстояний");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начало инициализации расстояний");
+        }
         int[] distances = new int[numOfStations];
         Arrays.fill(distances, Integer.MAX_VALUE);
         distances[departureIdx] = 0;
-        logger.info("Расстояния успешно инициализированы");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Расстояния успешно инициализированы");
+        }
         return distances;
     }
 
@@ -77,16 +118,16 @@ public class Dijkstra {
      * @return индекс станции с минимальным расстоянием.
      */
     private static int findMinDistanceStation(int[] distances, boolean[] visited) {
-        AtomicInteger minIndex = new AtomicInteger(-1);
-        AtomicInteger minValue = new AtomicInteger(Integer.MAX_VALUE);
-
-        IntStream.range(0, distances.length).forEach(i -> {
-            if (!visited[i] && distances[i] < minValue.get()) {
-                minValue.set(distances[i]);
-                minIndex.set(i);
+        // Обычный цикл: поиск выполняется V раз за запрос и не должен создавать объектов
+        int minIndex = -1;
+        int minValue = Integer.MAX_VALUE;
+        for (int i = 0; i < distances.length; i++) {
+            if (!visited[i] && distances[i] < minValue) {
+                minValue = distances[i];
+                minIndex = i;
             }
-        });
-        return minIndex.get();
+        }
+        return minIndex;
     }
 
     /**
@@ -98,12 +139,32 @@ public class Dijkstra {
      * @param currentStation индекс текущей станции.
      */
     private static void updateDistances(int[][] adjacencyMatrix, int[] distances, boolean[] visited, int currentStation) {
-        IntStream.range(0, adjacencyMatrix.length).forEach(j -> {
+        for (int j = 0; j < adjacencyMatrix.length; j++) {
             if (!visited[j] && adjacencyMatrix[currentStation][j] != Integer.MAX_VALUE &&
                     distances[currentStation] != Integer.MAX_VALUE &&
                     distances[currentStation] + adjacencyMatrix[currentStation][j] < distances[j]) {
                 distances[j] = distances[currentStation] + adjacencyMatrix[currentStation][j];
             }
-        });
+        }
+    }
+
+    /**
+     * Обновляет массив расстояний до соседей текущей станции по графу в сжатом формате.
+     *
+     * @param graph граф метрополитена.
+     * @param distances массив расстояний от станции отправления до всех других станций.
+     * @param visited массив, указывающий, были ли посещены станции.
+     * @param currentStation индекс текущей станции.
+     */
+    private static void updateDistances(Graph graph, int[] distances, boolean[] visited, int currentStation) {
+        if (distances[currentStation] == Integer.MAX_VALUE) {
+            return;
+        }
+        for (int e = graph.offsets[currentStation]; e < graph.offsets[currentStation + 1]; e++) {
+            int j = graph.targets[e];
+            if (!visited[j] && distances[currentStation] + graph.weights[e] < distances[j]) {
+                distances[j] = distances[currentStation] + graph.weights[e];
+            }
+        }
     }
 }
@@ -0,0 +1,243 @@
+package org.example.services;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс Graph хранит граф метрополитена в сжатом построчном формате (CSR).
+ * В отличие от матрицы смежности, занимающей O(V²) памяти, граф хранит только
+ * существующие ребра: для каждой станции в массиве {@code offsets} записано начало
+ * ее списка соседей, а в массивах {@code targets} и {@code weights} - сами соседи
+ * и время в пути до них в минутах.
+ *
+ * <p>Соседи станции {@code v} расположены в ячейках с индексами от
+ * {@code offsets[v]} (включительно) до {@code offsets[v + 1]} (не включительно).
+ * Граф неориентированный: каждое ребро из файла хранится в обе стороны.
+ * После создания объект не изменяется.</p>
+ *
+ * <p>Каждый созданный граф получает возрастающий номер {@code generation}, по которому
+ * кэши отличают перезагруженный граф от прежнего.</p>
+ */
+public class Graph {
+
+    private static final Logger logger = LogManager.getLogger(Graph.class);
+    private static final AtomicLong createdGraphs = new AtomicLong();
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    public final long generation = createdGraphs.incrementAndGet();
+    public final int numOfTheStations;
+    public final List<String> stationsNames;
+    public final StationIndex stationIndex;
+    public final int[] offsets;
+    public final int[] targets;
+    public final int[] weights;
+
+    /**
+     * Конструктор класса Graph, который строит сжатое представление графа по списку ребер.
+     *
+     * @param stationsNames названия станций, индекс в списке совпадает с индексом станции.
+     * @param from массив индексов первых станций ребер.
+     * @param to массив индексов вторых станций ребер.
+     * @param weight массив весов ребер в минутах.
+     * @param numOfEdges количество заполненных элементов в массивах ребер.
+     * @throws ArrayIndexOutOfBoundsException если индекс станции выходит за пределы списка станций.
+     * @throws IllegalArgumentException если вес ребра отрицательный.
+     */
+    public Graph(List<String> stationsNames, int[] from, int[] to, int[] weight, int numOfEdges) {
+        this(stationsNames, new StationIndex(stationsNames), from, to, weight, numOfEdges);
+    }
+
+    /**
+     * Конструктор класса Graph по списку ребер с уже построенным индексом названий станций,
+     * например индексом, по которому {@link Matrix} разбирала файл ребер.
+     *
+     * @param stationsNames названия станций, индекс в списке совпадает с индексом станции.
+     * @param stationIndex индекс, построенный по тем же названиям станций.
+     * @param from массив индексов первых станций ребер.
+     * @param to массив индексов вторых станций ребер.
+     * @param weight массив весов ребер в минутах.
+     * @param numOfEdges количество заполненных элементов в массивах ребер.
+     * @throws ArrayIndexOutOfBoundsException если индекс станции выходит за пределы списка станций.
+     * @throws IllegalArgumentException если вес ребра отрицательный.
+     */
+    Graph(List<String> stationsNames, StationIndex stationIndex, int[] from, int[] to, int[] weight, int numOfEdges) {
+        this.stationsNames = Collections.unmodifiableList(new ArrayList<>(stationsNames));
+        this.numOfTheStations = stationsNames.size();
+        this.stationIndex = stationIndex;
+        this.offsets = new int[numOfTheStations + 1];
+
+        for (int i = 0; i < numOfEdges; i++) {
+            checkEdge(from[i], to[i], weight[i]);
+            if (from[i] != to[i]) {
+                offsets[from[i] + 1]++;
+                offsets[to[i] + 1]++;
+            }
+        }
+        for (int v = 0; v < numOfTheStations; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        this.targets = new int[offsets[numOfTheStations]];
+        this.weights = new int[offsets[numOfTheStations]];
+        int[] position = Arrays.copyOf(offsets, numOfTheStations);
+        for (int i = 0; i < numOfEdges; i++) {
+            if (from[i] != to[i]) {
+                targets[position[from[i]]] = to[i];
+                weights[position[from[i]]++] = weight[i];
+                targets[position[to[i]]] = from[i];
+                weights[position[to[i]]++] = weight[i];
+            }
+        }
+        logger.info("Граф построен: станций {}, ребер {}.", numOfTheStations, targets.length / 2);
+    }
+
+    /**
+     * Конструктор класса Graph по готовому сжатому представлению, например прочитанному
+     * из двоичного файла {@link NetworkFile}. Массивы используются без копирования.
+     *
+     * @param stationsNames названия станций, индекс в списке совпадает с индексом станции.
+     * @param offsets начала списков соседей станций; на один элемент больше, чем станций.
+     * @param targets соседи станций.
+     * @param weights время в пути до соседей в минутах.
+     * @throws IllegalArgumentException если массивы не образуют корректный граф.
+     */
+    Graph(List<String> stationsNames, int[] offsets, int[] targets, int[] weights) {
+        this.stationsNames = Collections.unmodifiableList(new ArrayList<>(stationsNames));
+        this.numOfTheStations = stationsNames.size();
+        this.stationIndex = new StationIndex(this.stationsNames);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        if (offsets.length != numOfTheStations + 1 || offsets[0] != 0
+                || offsets[numOfTheStations] != targets.length || targets.length != weights.length) {
+            throw new IllegalArgumentException("Размеры массивов графа не согласованы.");
+        }
+        for (int v = 0; v < numOfTheStations; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                throw new IllegalArgumentException("Списки соседей станции " + v + " заданы неправильно.");
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                checkEdge(v, targets[e], weights[e]);
+            }
+        }
+        logger.info("Граф построен: станций {}, ребер {}.", numOfTheStations, targets.length / 2);
+    }
+
+    /**
+     * Загружает граф из файлов станций и ребер без построения матрицы смежности.
+     *
+     * @param fileStations имя файла, содержащего названия станций.
+     * @param fileEdges имя файла, содержащего связи между станциями и их веса.
+     * @return граф метрополитена.
+     * @throws FileNotFoundException если один из указанных файлов не найден.
+     */
+    public static Graph fromFiles(String fileStations, String fileEdges) throws FileNotFoundException {
+        return new Matrix(fileStations, fileEdges, false).graph;
+    }
+
+    /**
+     * Загружает граф из файлов станций и ребер, расположенных в файловой системе.
+     *
+     * @param fileStations путь к файлу, содержащему названия станций.
+     * @param fileEdges путь к файлу, содержащему связи между станциями и их веса.
+     * @return граф метрополитена.
+     * @throws FileNotFoundException если один из указанных файлов не найден.
+     */
+    public static Graph fromFiles(Path fileStations, Path fileEdges) throws FileNotFoundException {
+        return new Matrix(fileStations, fileEdges, false).graph;
+    }
+
+    /**
+     * Строит матрицу смежности по графу. Используется как представление для
+     * старого кода, работающего с {@code int[][]}. Отсутствие ребра обозначается
+     * значением Integer.MAX_VALUE, на диагонали стоят нули.
+     *
+     * @return матрица смежности размером numOfTheStations × numOfTheStations.
+     */
+    public int[][] toAdjacencyMatrix() {
+        int[][] adjacencyMatrix = new int[numOfTheStations][numOfTheStations];
+        for (int v = 0; v < numOfTheStations; v++) {
+            Arrays.fill(adjacencyMatrix[v], Integer.MAX_VALUE);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                adjacencyMatrix[v][targets[e]] = Math.min(adjacencyMatrix[v][targets[e]], weights[e]);
+            }
+            adjacencyMatrix[v][v] = 0;
+        }
+        return adjacencyMatrix;
+    }
+
+    /**
+     * Вычисляет 64-битный отпечаток графа (FNV-1a) по названиям станций и ребрам.
+     * Граф однозначно строится по файлам станций и ребер, поэтому отпечаток меняется
+     * при любом изменении данных в этих файлах и служит для проверки актуальности
+     * сохраненных на диск вычислений.
+     *
+     * @return отпечаток графа.
+     */
+    public long fingerprint() {
+        long hash = FNV_OFFSET;
+        for (String name : stationsNames) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            hash = hashBytes(hash, bytes, bytes.length);
+            hash = (hash ^ '\n') * FNV_PRIME;
+        }
+        return hashArrays(hash, offsets, targets, weights);
+    }
+
+    /**
+     * Вычисляет отпечаток графа так же, как {@link #fingerprint()}, по названиям станций
+     * в UTF-8, каждое из которых завершается символом '\n', без создания объекта графа.
+     *
+     * @param namesUtf8 названия станций в UTF-8.
+     * @param namesLength количество байтов названий.
+     * @param offsets начала списков соседей станций.
+     * @param targets соседи станций.
+     * @param weights время в пути до соседей.
+     * @return отпечаток графа.
+     */
+    static long fingerprint(byte[] namesUtf8, int namesLength, int[] offsets, int[] targets, int[] weights) {
+        return hashArrays(hashBytes(FNV_OFFSET, namesUtf8, namesLength), offsets, targets, weights);
+    }
+
+    private static long hashBytes(long hash, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hashArrays(long hash, int[] offsets, int[] targets, int[] weights) {
+        for (int[] array : new int[][] {offsets, targets, weights}) {
+            for (int value : array) {
+                hash = (hash ^ value) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Проверяет корректность ребра перед добавлением в граф.
+     *
+     * @param station1 индекс первой станции.
+     * @param station2 индекс второй станции.
+     * @param weight вес ребра.
+     */
+    private void checkEdge(int station1, int station2, int weight) {
+        if (station1 < 0 || station2 < 0 || station1 >= numOfTheStations || station2 >= numOfTheStations) {
+            throw new ArrayIndexOutOfBoundsException("Ребро " + station1 + " - " + station2 + " ссылается на несуществующую станцию.");
+        }
+        if (weight < 0) {
+            throw new IllegalArgumentException("Вес ребра " + stationsNames.get(station1) + " - "
+                    + stationsNames.get(station2) + " не может быть отрицательным.");
+        }
+    }
+}
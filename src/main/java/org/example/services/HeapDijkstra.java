@@ -0,0 +1,154 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс HeapDijkstra реализует алгоритм Дейкстры на графе {@link Graph} с очередью
+ * с приоритетами на основе двоичной кучи {@link IndexedMinHeap}. Время поиска
+ * составляет O(E log V) вместо O(V²) у {@link Dijkstra}.
+ *
+ * <p>Поиск прекращается, как только станция назначения извлечена из кучи: ее расстояние
+ * уже окончательное, и остальной граф просматривать не нужно. Рабочие массивы выделяются
+ * один раз при создании объекта, поэтому экземпляр не потокобезопасен - каждому потоку
+ * нужен свой.</p>
+ *
+ * <p>Поиск периодически проверяет флаг прерывания потока и при прерывании прекращается
+ * с исключением {@link CancellationException}, поэтому отмененный запрос
+ * {@link AsyncQueryExecutor} не занимает фоновый поток до конца поиска.</p>
+ *
+ * <p>Каждый поиск учитывается в метриках {@link Metrics}: количество извлеченных из кучи
+ * станций, количество просмотренных ребер и длительность поиска.</p>
+ */
+public class HeapDijkstra implements ShortestPathEngine {
+
+    private static final Logger logger = LogManager.getLogger(HeapDijkstra.class);
+    private static final LongAdder searches = Metrics.counter("dijkstra.heap.searches");
+    private static final LongAdder settledStations = Metrics.counter("dijkstra.heap.settled");
+    private static final LongAdder relaxedEdges = Metrics.counter("dijkstra.heap.relaxed");
+    private static final LatencyHistogram searchLatency = Metrics.histogram("dijkstra.heap.search");
+    private static final int INTERRUPT_CHECK_MASK = 1023; // Проверка прерывания раз в 1024 станции
+    private final Graph graph;
+    private final int[] distances;
+    private final int[] previous;
+    private final IndexedMinHeap heap;
+
+    /**
+     * Конструктор класса HeapDijkstra.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     */
+    public HeapDijkstra(Graph graph) {
+        this.graph = graph;
+        this.distances = new int[graph.numOfTheStations];
+        this.previous = new int[graph.numOfTheStations];
+        this.heap = new IndexedMinHeap(graph.numOfTheStations);
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        return distances[arrivalIdx];
+    }
+
+    /**
+     * Находит маршрут с минимальным временем в пути между двумя станциями.
+     * Предшественники станций запоминаются во время того же поиска.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        return Route.fromPredecessors(graph, distances, previous, departureIdx, arrivalIdx);
+    }
+
+    /**
+     * Находит минимальное время в пути от станции отправления до всех станций графа
+     * и копирует результат в переданные массивы.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param distancesOut массив, в который записываются расстояния; для недостижимых станций - {@link #UNREACHABLE}.
+     * @param previousOut массив, в который записываются предшественники станций; для станции
+     *                    отправления и недостижимых станций - -1.
+     */
+    public void shortestPaths(int departureIdx, int[] distancesOut, int[] previousOut) {
+        search(departureIdx, -1);
+        System.arraycopy(distances, 0, distancesOut, 0, distances.length);
+        System.arraycopy(previous, 0, previousOut, 0, previous.length);
+    }
+
+    /**
+     * Выполняет поиск от станции отправления, пока не будет извлечена станция назначения.
+     * Если станция назначения равна -1, поиск продолжается до просмотра всех достижимых станций.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения или -1.
+     * @throws CancellationException если поток прерван во время поиска.
+     */
+    private void search(int departureIdx, int arrivalIdx) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начат поиск минимального расстояния.");
+        }
+        long start = System.nanoTime();
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(previous, -1);
+        heap.clear();
+        distances[departureIdx] = 0;
+        heap.insertOrDecrease(departureIdx, 0);
+
+        int settled = 0;
+        int relaxed = 0;
+        while (!heap.isEmpty()) {
+            int currentStation = heap.pollMin();
+            if (currentStation == arrivalIdx) {
+                settled++;
+                break;
+            }
+            if ((settled++ & INTERRUPT_CHECK_MASK) == INTERRUPT_CHECK_MASK && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Поиск маршрута прерван.");
+            }
+            relaxed += relax(currentStation);
+        }
+        searches.increment();
+        settledStations.add(settled);
+        relaxedEdges.add(relaxed);
+        searchLatency.record(System.nanoTime() - start);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Минимальное расстояние найдено и перенаправлено.");
+        }
+    }
+
+    /**
+     * Обновляет расстояния и предшественников соседей текущей станции и добавляет их в кучу.
+     *
+     * @param currentStation индекс текущей станции.
+     * @return количество просмотренных ребер.
+     */
+    private int relax(int currentStation) {
+        int base = distances[currentStation];
+        for (int e = graph.offsets[currentStation]; e < graph.offsets[currentStation + 1]; e++) {
+            int next = graph.targets[e];
+            int candidate = base + graph.weights[e];
+            if (candidate < distances[next]) {
+                distances[next] = candidate;
+                previous[next] = currentStation;
+                heap.insertOrDecrease(next, candidate);
+            }
+        }
+        return graph.offsets[currentStation + 1] - graph.offsets[currentStation];
+    }
+}
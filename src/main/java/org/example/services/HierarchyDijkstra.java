@@ -0,0 +1,256 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс HierarchyDijkstra находит кратчайшие пути по иерархии сжатия
+ * {@link ContractionHierarchy}. Поиск выполняется одновременно от станции отправления
+ * и от станции назначения и проходит только по ребрам к станциям с большим рангом,
+ * поэтому просматривается лишь малая часть графа.
+ *
+ * <p>На каждом шаге продолжается направление с меньшим ключом в куче. Станция, достигнутая
+ * обоими поисками, дает кандидата на кратчайший путь; поиск прекращается, когда ключи
+ * обеих куч не меньше лучшего кандидата. Ребра-сокращения найденного пути раскрываются
+ * в исходные перегоны, поэтому маршрут совпадает по виду с маршрутом {@link HeapDijkstra}.</p>
+ *
+ * <p>Рабочие массивы выделяются один раз при создании объекта и между поисками очищаются
+ * только в посещенных станциях, поэтому экземпляр не потокобезопасен - каждому потоку
+ * нужен свой. Саму иерархию могут использовать несколько экземпляров одновременно.</p>
+ */
+public class HierarchyDijkstra implements ShortestPathEngine {
+
+    private static final LongAdder searches = Metrics.counter("ch.searches");
+    private static final LongAdder settledStations = Metrics.counter("ch.settled");
+    private static final LatencyHistogram searchLatency = Metrics.histogram("ch.search");
+    private static final int NONE = -1;
+    private final ContractionHierarchy hierarchy;
+    private final Direction forward;
+    private final Direction backward;
+    private int best;
+    private int meeting;
+
+    /**
+     * Конструктор класса HierarchyDijkstra.
+     *
+     * @param hierarchy иерархия сжатия графа метрополитена.
+     */
+    public HierarchyDijkstra(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.forward = new Direction(hierarchy.graph.numOfTheStations);
+        this.backward = new Direction(hierarchy.graph.numOfTheStations);
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        return best;
+    }
+
+    /**
+     * Находит маршрут с минимальным временем в пути между двумя станциями.
+     * Ребра-сокращения раскрываются в перегоны исходного графа.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        search(departureIdx, arrivalIdx);
+        if (best == UNREACHABLE) {
+            return Route.notFound();
+        }
+        // Ребра пути в порядке от станции отправления до станции назначения вместе с их начальными станциями
+        int forwardEdges = pathLength(forward);
+        int numOfEdges = forwardEdges + pathLength(backward);
+        int[] edges = new int[numOfEdges];
+        int[] starts = new int[numOfEdges];
+        int position = forwardEdges;
+        for (int station = meeting; forward.parentEdges[station] != NONE; ) {
+            int edge = forward.parentEdges[station];
+            station = hierarchy.otherEnd(edge, station);
+            edges[--position] = edge;
+            starts[position] = station;
+        }
+        position = forwardEdges;
+        for (int station = meeting; backward.parentEdges[station] != NONE; position++) {
+            edges[position] = backward.parentEdges[station];
+            starts[position] = station;
+            station = hierarchy.otherEnd(edges[position], station);
+        }
+        return unpack(departureIdx, edges, starts);
+    }
+
+    /**
+     * Считает ребра на пути от станции встречи до начала поиска в указанном направлении.
+     *
+     * @param direction направление поиска.
+     * @return количество ребер иерархии.
+     */
+    private int pathLength(Direction direction) {
+        int length = 0;
+        for (int station = meeting; direction.parentEdges[station] != NONE;
+             station = hierarchy.otherEnd(direction.parentEdges[station], station)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Выполняет двунаправленный поиск по ребрам к станциям с большим рангом.
+     * Результат записывается в поля best и meeting.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     */
+    private void search(int departureIdx, int arrivalIdx) {
+        long start = System.nanoTime();
+        forward.reset();
+        backward.reset();
+        best = UNREACHABLE;
+        meeting = NONE;
+        forward.reach(departureIdx, 0, NONE);
+        backward.reach(arrivalIdx, 0, NONE);
+        int settled = 0;
+        while (true) {
+            int forwardKey = forward.heap.isEmpty() ? UNREACHABLE : forward.heap.peekKey();
+            int backwardKey = backward.heap.isEmpty() ? UNREACHABLE : backward.heap.peekKey();
+            if (Math.min(forwardKey, backwardKey) >= best) {
+                break;
+            }
+            if (forwardKey <= backwardKey) {
+                settle(forward, backward);
+            } else {
+                settle(backward, forward);
+            }
+            settled++;
+        }
+        searches.increment();
+        settledStations.add(settled);
+        searchLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Извлекает станцию из кучи направления, проверяет, не достигнута ли она другим
+     * направлением, и просматривает ее ребра к станциям с большим рангом.
+     *
+     * @param direction направление, которое продолжается.
+     * @param opposite противоположное направление.
+     */
+    private void settle(Direction direction, Direction opposite) {
+        int station = direction.heap.pollMin();
+        int distance = direction.distances[station];
+        if (opposite.distances[station] != UNREACHABLE && distance + opposite.distances[station] < best) {
+            best = distance + opposite.distances[station];
+            meeting = station;
+        }
+        for (int i = hierarchy.upwardOffsets[station]; i < hierarchy.upwardOffsets[station + 1]; i++) {
+            int next = hierarchy.upwardTargets[i];
+            int candidate = distance + hierarchy.upwardWeights[i];
+            if (candidate < direction.distances[next]) {
+                direction.reach(next, candidate, hierarchy.upwardEdges[i]);
+            }
+        }
+    }
+
+    /**
+     * Раскрывает ребра пути иерархии в перегоны исходного графа. Сокращение заменяется
+     * двумя ребрами через среднюю станцию; раскрытие выполняется с явным стеком.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param edges ребра пути иерархии по порядку.
+     * @param starts станции, с которых начинается каждое ребро.
+     * @return маршрут по исходному графу.
+     */
+    private Route unpack(int departureIdx, int[] edges, int[] starts) {
+        int[] stations = new int[edges.length + 1];
+        int[] segmentMinutes = new int[edges.length];
+        int count = 0;
+        stations[count] = departureIdx;
+        int[] stackEdges = new int[16];
+        int[] stackStarts = new int[16];
+        for (int i = 0; i < edges.length; i++) {
+            int size = 0;
+            stackEdges[size] = edges[i];
+            stackStarts[size++] = starts[i];
+            while (size > 0) {
+                int edge = stackEdges[--size];
+                int from = stackStarts[size];
+                int middle = hierarchy.edgeMiddle[edge];
+                if (middle == NONE) {
+                    if (count + 1 == stations.length) {
+                        stations = Arrays.copyOf(stations, stations.length * 2);
+                        segmentMinutes = Arrays.copyOf(segmentMinutes, stations.length - 1);
+                    }
+                    segmentMinutes[count] = hierarchy.edgeWeights[edge];
+                    stations[++count] = hierarchy.otherEnd(edge, from);
+                    continue;
+                }
+                int first = hierarchy.edgeFirst[edge];
+                int second = hierarchy.edgeSecond[edge];
+                if (hierarchy.edgeFrom[first] != from && hierarchy.edgeTo[first] != from) {
+                    first = second;
+                    second = hierarchy.edgeFirst[edge];
+                }
+                if (size + 2 > stackEdges.length) {
+                    stackEdges = Arrays.copyOf(stackEdges, stackEdges.length * 2);
+                    stackStarts = Arrays.copyOf(stackStarts, stackStarts.length * 2);
+                }
+                // Второе ребро кладется первым, чтобы первое было раскрыто раньше
+                stackEdges[size] = second;
+                stackStarts[size++] = middle;
+                stackEdges[size] = first;
+                stackStarts[size++] = from;
+            }
+        }
+        stations = Arrays.copyOf(stations, count + 1);
+        segmentMinutes = Arrays.copyOf(segmentMinutes, count);
+        return new Route(stations, Route.namesOf(hierarchy.graph, stations), segmentMinutes, best);
+    }
+
+    /**
+     * Рабочие массивы одного направления поиска: расстояния, ребра, по которым достигнуты
+     * станции, куча и список достигнутых станций для быстрой очистки.
+     */
+    private static class Direction {
+
+        private final int[] distances;
+        private final int[] parentEdges;
+        private final int[] reached;
+        private final IndexedMinHeap heap;
+        private int numOfReached;
+
+        Direction(int numOfStations) {
+            distances = new int[numOfStations];
+            parentEdges = new int[numOfStations];
+            reached = new int[numOfStations];
+            heap = new IndexedMinHeap(numOfStations);
+            Arrays.fill(distances, UNREACHABLE);
+        }
+
+        void reset() {
+            for (int i = 0; i < numOfReached; i++) {
+                distances[reached[i]] = UNREACHABLE;
+            }
+            numOfReached = 0;
+            heap.clear();
+        }
+
+        void reach(int station, int distance, int edge) {
+            if (distances[station] == UNREACHABLE) {
+                reached[numOfReached++] = station;
+            }
+            distances[station] = distance;
+            parentEdges[station] = edge;
+            heap.insertOrDecrease(station, distance);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.services;
+
+import java.util.Arrays;
+
+/**
+ * Класс IndexedMinHeap реализует двоичную кучу станций, упорядоченную по ключу
+ * (расстоянию), с операцией уменьшения ключа. Все массивы выделяются один раз
+ * при создании, поэтому операции над кучей не создают новых объектов.
+ *
+ * <p>Станции задаются индексами от 0 до capacity - 1. Для каждой станции хранится
+ * ее позиция в куче, что позволяет уменьшать ключ за O(log V).</p>
+ */
+public class IndexedMinHeap {
+
+    private static final int ABSENT = -1;
+    private final int[] heap;
+    private final int[] positions;
+    private final int[] keys;
+    private int size;
+
+    /**
+     * Конструктор класса IndexedMinHeap.
+     *
+     * @param capacity количество станций, которые могут находиться в куче.
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * Проверяет, пуста ли куча.
+     *
+     * @return true, если в куче нет станций.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Проверяет, находится ли станция в куче.
+     *
+     * @param station индекс станции.
+     * @return true, если станция находится в куче.
+     */
+    public boolean contains(int station) {
+        return positions[station] != ABSENT;
+    }
+
+    /**
+     * Возвращает наименьший ключ в куче, не извлекая станцию.
+     *
+     * @return наименьший ключ; куча не должна быть пустой.
+     */
+    public int peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Добавляет станцию в кучу или уменьшает ее ключ, если станция уже в куче
+     * и новый ключ меньше текущего.
+     *
+     * @param station индекс станции.
+     * @param key новый ключ станции.
+     */
+    public void insertOrDecrease(int station, int key) {
+        int position = positions[station];
+        if (position == ABSENT) {
+            position = size++;
+        } else if (key >= keys[station]) {
+            return;
+        }
+        keys[station] = key;
+        siftUp(station, position);
+    }
+
+    /**
+     * Извлекает из кучи станцию с наименьшим ключом.
+     *
+     * @return индекс станции; куча не должна быть пустой.
+     */
+    public int pollMin() {
+        int min = heap[0];
+        positions[min] = ABSENT;
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(last, 0);
+        }
+        return min;
+    }
+
+    /**
+     * Удаляет из кучи все станции.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Поднимает станцию к корню кучи, пока ее ключ меньше ключа родителя.
+     *
+     * @param station индекс станции.
+     * @param position начальная позиция станции в куче.
+     */
+    private void siftUp(int station, int position) {
+        int key = keys[station];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = station;
+        positions[station] = position;
+    }
+
+    /**
+     * Опускает станцию к листьям кучи, пока ее ключ больше ключа меньшего из потомков.
+     *
+     * @param station индекс станции.
+     * @param position начальная позиция станции в куче.
+     */
+    private void siftDown(int station, int position) {
+        int key = keys[station];
+        int half = size >>> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = heap[childPosition];
+            int rightPosition = childPosition + 1;
+            if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+                childPosition = rightPosition;
+                child = heap[childPosition];
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+        heap[position] = station;
+        positions[station] = position;
+    }
+}
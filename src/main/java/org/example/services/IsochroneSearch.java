@@ -0,0 +1,208 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс IsochroneSearch находит время в пути от одной станции сразу до многих станций
+ * за один поиск Дейкстры: до всех станций графа, до заданного списка станций или до всех
+ * станций, достижимых не дольше чем за заданное количество минут (изохрона).
+ *
+ * <p>Станции извлекаются из кучи в порядке возрастания времени в пути, поэтому поиск
+ * прекращается, как только следующая станция дальше заданного времени или извлечены все
+ * нужные станции. Результат записывается в переданные массивы или передается обработчику
+ * {@link StationVisitor} по мере извлечения станций, без создания объекта на станцию.</p>
+ *
+ * <p>Рабочие массивы выделяются один раз при создании объекта, а между поисками очищаются
+ * только в достигнутых станциях, поэтому поиск в небольшом радиусе не просматривает весь
+ * граф. Экземпляр не потокобезопасен - каждому потоку нужен свой.</p>
+ */
+public class IsochroneSearch {
+
+    private static final LongAdder searches = Metrics.counter("isochrone.searches");
+    private static final LongAdder settledStations = Metrics.counter("isochrone.settled");
+    private static final LatencyHistogram searchLatency = Metrics.histogram("isochrone.search");
+    private final Graph graph;
+    private final int[] distances;
+    private final int[] reached;
+    private final int[] settled;
+    private final int[] targetStamps;
+    private final IndexedMinHeap heap;
+    private int numOfReached;
+    private int numOfSettled;
+    private int stamp;
+
+    /**
+     * Обработчик станций, достигнутых поиском.
+     */
+    @FunctionalInterface
+    public interface StationVisitor {
+
+        /**
+         * Вызывается для каждой достигнутой станции в порядке возрастания времени в пути.
+         *
+         * @param station индекс станции.
+         * @param minutes минимальное время в пути до станции.
+         */
+        void visit(int station, int minutes);
+    }
+
+    /**
+     * Конструктор класса IsochroneSearch.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     */
+    public IsochroneSearch(Graph graph) {
+        this.graph = graph;
+        this.distances = new int[graph.numOfTheStations];
+        this.reached = new int[graph.numOfTheStations];
+        this.settled = new int[graph.numOfTheStations];
+        this.targetStamps = new int[graph.numOfTheStations];
+        this.heap = new IndexedMinHeap(graph.numOfTheStations);
+        Arrays.fill(distances, ShortestPathEngine.UNREACHABLE);
+    }
+
+    /**
+     * Проверяет, работает ли поиск на указанном графе.
+     *
+     * @param graph граф.
+     * @return true, если поиск создан для этого графа.
+     */
+    public boolean isFor(Graph graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Находит минимальное время в пути от станции отправления до всех станций графа.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param minutesOut массив размером с количество станций, в который записывается время
+     *                   в пути; для недостижимых станций - {@link ShortestPathEngine#UNREACHABLE}.
+     */
+    public void distancesToAll(int departureIdx, int[] minutesOut) {
+        search(departureIdx, ShortestPathEngine.UNREACHABLE, 0, null);
+        System.arraycopy(distances, 0, minutesOut, 0, distances.length);
+    }
+
+    /**
+     * Находит минимальное время в пути от станции отправления до каждой станции списка.
+     * Поиск прекращается, как только найдено время до всех станций списка.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivals индексы станций назначения; могут повторяться.
+     * @param minutesOut массив не короче списка станций, в который записывается время в пути
+     *                   в том же порядке; для недостижимых станций - {@link ShortestPathEngine#UNREACHABLE}.
+     */
+    public void distancesTo(int departureIdx, int[] arrivals, int[] minutesOut) {
+        nextStamp();
+        int numOfTargets = 0;
+        for (int arrivalIdx : arrivals) {
+            if (targetStamps[arrivalIdx] != stamp) {
+                targetStamps[arrivalIdx] = stamp;
+                numOfTargets++;
+            }
+        }
+        search(departureIdx, ShortestPathEngine.UNREACHABLE, numOfTargets, null);
+        for (int i = 0; i < arrivals.length; i++) {
+            minutesOut[i] = distances[arrivals[i]];
+        }
+    }
+
+    /**
+     * Находит все станции, до которых можно доехать не дольше чем за заданное время.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param budgetMinutes наибольшее время в пути в минутах.
+     * @param stationsOut массив размером с количество станций, в который записываются индексы
+     *                    найденных станций в порядке возрастания времени в пути.
+     * @param minutesOut массив размером с количество станций, в который записывается время
+     *                   в пути до найденных станций в том же порядке.
+     * @return количество найденных станций, включая станцию отправления.
+     */
+    public int reachableWithin(int departureIdx, int budgetMinutes, int[] stationsOut, int[] minutesOut) {
+        search(departureIdx, budgetMinutes, 0, null);
+        for (int i = 0; i < numOfSettled; i++) {
+            stationsOut[i] = settled[i];
+            minutesOut[i] = distances[settled[i]];
+        }
+        return numOfSettled;
+    }
+
+    /**
+     * Передает обработчику все станции, до которых можно доехать не дольше чем за заданное
+     * время, по мере их нахождения.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param budgetMinutes наибольшее время в пути в минутах.
+     * @param visitor обработчик, который вызывается для каждой станции в порядке возрастания
+     *                времени в пути, начиная со станции отправления.
+     */
+    public void forEachReachable(int departureIdx, int budgetMinutes, StationVisitor visitor) {
+        search(departureIdx, budgetMinutes, 0, visitor);
+    }
+
+    /**
+     * Выполняет поиск от станции отправления, пока время в пути до следующей станции
+     * не превышает заданное и не извлечены все отмеченные станции назначения.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param budgetMinutes наибольшее время в пути в минутах.
+     * @param numOfTargets количество отмеченных станций назначения; 0, если их нет.
+     * @param visitor обработчик извлеченных станций или null.
+     */
+    private void search(int departureIdx, int budgetMinutes, int numOfTargets, StationVisitor visitor) {
+        long start = System.nanoTime();
+        for (int i = 0; i < numOfReached; i++) {
+            distances[reached[i]] = ShortestPathEngine.UNREACHABLE;
+        }
+        numOfReached = 0;
+        numOfSettled = 0;
+        heap.clear();
+        if (budgetMinutes >= 0) {
+            distances[departureIdx] = 0;
+            reached[numOfReached++] = departureIdx;
+            heap.insertOrDecrease(departureIdx, 0);
+        }
+        int remainingTargets = numOfTargets;
+        while (!heap.isEmpty() && heap.peekKey() <= budgetMinutes) {
+            int station = heap.pollMin();
+            int base = distances[station];
+            settled[numOfSettled++] = station;
+            if (visitor != null) {
+                visitor.visit(station, base);
+            }
+            if (numOfTargets > 0 && targetStamps[station] == stamp && --remainingTargets == 0) {
+                break;
+            }
+            for (int e = graph.offsets[station]; e < graph.offsets[station + 1]; e++) {
+                int next = graph.targets[e];
+                int candidate = base + graph.weights[e];
+                if (candidate < distances[next]) {
+                    if (distances[next] == ShortestPathEngine.UNREACHABLE) {
+                        reached[numOfReached++] = next;
+                    }
+                    distances[next] = candidate;
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+        // Время до достигнутых, но не извлеченных станций не окончательное
+        while (!heap.isEmpty()) {
+            distances[heap.pollMin()] = ShortestPathEngine.UNREACHABLE;
+        }
+        searches.increment();
+        settledStations.add(numOfSettled);
+        searchLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Переходит к следующей метке станций назначения. При переполнении счетчика
+     * метки всех станций сбрасываются.
+     */
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(targetStamps, 0);
+            stamp = 1;
+        }
+    }
+}
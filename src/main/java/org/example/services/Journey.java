@@ -0,0 +1,126 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Класс Journey описывает поездку, найденную по расписанию {@link Timetable}: время
+ * отправления, время прибытия и участки поездки - проезд по линии или пешеходный переход.
+ * Время указано в минутах от полуночи начала суток движения.
+ */
+public class Journey {
+
+    public final int departureTime;
+    public final int arrivalTime;
+    public final List<Leg> legs;
+
+    /**
+     * Конструктор класса Journey.
+     *
+     * @param departureTime время отправления, указанное в запросе.
+     * @param arrivalTime время прибытия или {@link ShortestPathEngine#UNREACHABLE}.
+     * @param legs участки поездки по порядку.
+     */
+    public Journey(int departureTime, int arrivalTime, List<Leg> legs) {
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.legs = Collections.unmodifiableList(legs);
+    }
+
+    /**
+     * Создает пустую поездку для случая, когда до станции назначения нельзя доехать.
+     *
+     * @param departureTime время отправления, указанное в запросе.
+     * @return поездка без участков.
+     */
+    public static Journey notFound(int departureTime) {
+        return new Journey(departureTime, ShortestPathEngine.UNREACHABLE, new ArrayList<>());
+    }
+
+    /**
+     * Проверяет, найдена ли поездка.
+     *
+     * @return true, если до станции назначения можно доехать.
+     */
+    public boolean isFound() {
+        return arrivalTime != ShortestPathEngine.UNREACHABLE;
+    }
+
+    /**
+     * Возвращает продолжительность поездки с учетом ожидания поездов.
+     *
+     * @return продолжительность в минутах.
+     */
+    public int totalMinutes() {
+        return arrivalTime - departureTime;
+    }
+
+    /**
+     * Возвращает описание поездки: по строке на каждый участок.
+     *
+     * @return строковое представление поездки.
+     */
+    @Override
+    public String toString() {
+        if (!isFound()) {
+            return "Поездка не найдена.";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Leg leg : legs) {
+            text.append(leg).append('\n');
+        }
+        return text.append("Прибытие в ").append(Timetable.formatTime(arrivalTime))
+                .append(", в пути ").append(totalMinutes()).append(" мин.").toString();
+    }
+
+    /**
+     * Участок поездки: проезд по линии от станции посадки до станции высадки
+     * или пешеходный переход между станциями.
+     */
+    public static class Leg {
+
+        public final String lineName;
+        public final String fromStation;
+        public final String toStation;
+        public final int departureTime;
+        public final int arrivalTime;
+
+        /**
+         * Конструктор участка поездки.
+         *
+         * @param lineName название линии или null для пешеходного перехода.
+         * @param fromStation название станции начала участка.
+         * @param toStation название станции конца участка.
+         * @param departureTime время отправления.
+         * @param arrivalTime время прибытия.
+         */
+        public Leg(String lineName, String fromStation, String toStation, int departureTime, int arrivalTime) {
+            this.lineName = lineName;
+            this.fromStation = fromStation;
+            this.toStation = toStation;
+            this.departureTime = departureTime;
+            this.arrivalTime = arrivalTime;
+        }
+
+        /**
+         * Проверяет, является ли участок пешеходным переходом.
+         *
+         * @return true для перехода, false для проезда по линии.
+         */
+        public boolean isWalk() {
+            return lineName == null;
+        }
+
+        /**
+         * Возвращает описание участка.
+         *
+         * @return строковое представление участка.
+         */
+        @Override
+        public String toString() {
+            return Timetable.formatTime(departureTime) + " " + fromStation + " → " + Timetable.formatTime(arrivalTime)
+                    + " " + toStation + (isWalk() ? " (переход)" : " (" + lineName + ")");
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс KShortestPaths находит несколько кратчайших маршрутов без повторяющихся станций
+ * между двумя станциями алгоритмом Йена (Yen). Альтернативные маршруты нужны, когда
+ * перегон переполнен или закрыт.
+ *
+ * <p>Первый маршрут - кратчайший. Каждый следующий строится из уже найденного: для каждой
+ * станции маршрута (станции ответвления) начальная часть маршрута до нее сохраняется,
+ * а продолжение ищется поиском Дейкстры, в котором запрещены станции начальной части
+ * и перегоны из станции ответвления, уже использованные найденными маршрутами с той же
+ * начальной частью. Лучший из полученных кандидатов становится следующим маршрутом.</p>
+ *
+ * <p>Все поиски ответвлений используют одни и те же рабочие массивы: расстояния очищаются
+ * только в достигнутых станциях, а запрещенные станции и перегоны отмечаются номером
+ * поиска, поэтому их не нужно сбрасывать. Экземпляр не потокобезопасен - каждому потоку
+ * нужен свой.</p>
+ */
+public class KShortestPaths {
+
+    private static final LongAdder queries = Metrics.counter("kshortest.queries");
+    private static final LongAdder spurSearches = Metrics.counter("kshortest.spur.searches");
+    private static final LatencyHistogram queryLatency = Metrics.histogram("kshortest.query");
+    private final Graph graph;
+    private final int[] distances;
+    private final int[] previous;
+    private final int[] reached;
+    private final int[] bannedStations;
+    private final int[] bannedEdges;
+    private final IndexedMinHeap heap;
+    private int numOfReached;
+    private int stamp;
+
+    /**
+     * Конструктор класса KShortestPaths.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     */
+    public KShortestPaths(Graph graph) {
+        this.graph = graph;
+        this.distances = new int[graph.numOfTheStations];
+        this.previous = new int[graph.numOfTheStations];
+        this.reached = new int[graph.numOfTheStations];
+        this.bannedStations = new int[graph.numOfTheStations];
+        this.bannedEdges = new int[graph.targets.length];
+        this.heap = new IndexedMinHeap(graph.numOfTheStations);
+        Arrays.fill(distances, ShortestPathEngine.UNREACHABLE);
+    }
+
+    /**
+     * Проверяет, работает ли поиск на указанном графе.
+     *
+     * @param graph граф.
+     * @return true, если поиск создан для этого графа.
+     */
+    public boolean isFor(Graph graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Находит до k маршрутов без повторяющихся станций в порядке возрастания времени в пути.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @param k наибольшее количество маршрутов.
+     * @return маршруты, первый из которых кратчайший; пустой список, если станция недостижима.
+     * @throws IllegalArgumentException если k меньше 1.
+     */
+    public List<Route> routes(int departureIdx, int arrivalIdx, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Количество маршрутов должно быть положительным.");
+        }
+        long start = System.nanoTime();
+        List<Route> found = new ArrayList<>(k);
+        PriorityQueue<Route> candidates = new PriorityQueue<>((a, b) -> a.totalMinutes != b.totalMinutes
+                ? Integer.compare(a.totalMinutes, b.totalMinutes) : Integer.compare(a.stations.length, b.stations.length));
+        nextStamp();
+        Route shortest = spurRoute(null, 0, 0, departureIdx, arrivalIdx);
+        if (shortest.isFound()) {
+            found.add(shortest);
+        }
+        while (!found.isEmpty() && found.size() < k) {
+            Route last = found.get(found.size() - 1);
+            int rootMinutes = 0;
+            for (int i = 0; i + 1 < last.stations.length; i++) {
+                int spur = last.stations[i];
+                nextStamp();
+                for (int j = 0; j < i; j++) {
+                    bannedStations[last.stations[j]] = stamp;
+                }
+                for (Route route : found) {
+                    if (route.stations.length > i + 1 && Arrays.equals(route.stations, 0, i + 1, last.stations, 0, i + 1)) {
+                        banEdges(spur, route.stations[i + 1]);
+                    }
+                }
+                Route candidate = spurRoute(last, i, rootMinutes, spur, arrivalIdx);
+                if (candidate.isFound() && !contains(found, candidate) && !contains(candidates, candidate)) {
+                    candidates.add(candidate);
+                }
+                rootMinutes += last.segmentMinutes[i];
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.poll());
+        }
+        queries.increment();
+        queryLatency.record(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Запрещает все перегоны из одной станции в другую для текущего поиска.
+     *
+     * @param from индекс станции, из которой выходит перегон.
+     * @param to индекс станции, в которую ведет перегон.
+     */
+    private void banEdges(int from, int to) {
+        for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+            if (graph.targets[e] == to) {
+                bannedEdges[e] = stamp;
+            }
+        }
+    }
+
+    /**
+     * Ищет продолжение маршрута от станции ответвления до станции назначения с учетом
+     * запрещенных станций и перегонов и присоединяет его к начальной части маршрута.
+     *
+     * @param root маршрут, от которого ответвляется новый, или null для первого маршрута.
+     * @param spurPosition номер станции ответвления в маршруте root; для первого маршрута 0.
+     * @param rootMinutes время в пути по начальной части маршрута.
+     * @param spur индекс станции ответвления; для первого маршрута - станция отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return полный маршрут или пустой маршрут, если продолжение не найдено.
+     */
+    private Route spurRoute(Route root, int spurPosition, int rootMinutes, int spur, int arrivalIdx) {
+        search(spur, arrivalIdx);
+        if (distances[arrivalIdx] == ShortestPathEngine.UNREACHABLE) {
+            return Route.notFound();
+        }
+        int spurLength = 0;
+        for (int station = arrivalIdx; station != spur; station = previous[station]) {
+            spurLength++;
+        }
+        int[] stations = new int[spurPosition + spurLength + 1];
+        int[] segmentMinutes = new int[stations.length - 1];
+        if (root != null) {
+            System.arraycopy(root.stations, 0, stations, 0, spurPosition);
+            System.arraycopy(root.segmentMinutes, 0, segmentMinutes, 0, spurPosition);
+        }
+        for (int i = stations.length - 1, station = arrivalIdx; i >= spurPosition; i--) {
+            stations[i] = station;
+            if (i > spurPosition) {
+                segmentMinutes[i - 1] = distances[station] - distances[previous[station]];
+                station = previous[station];
+            }
+        }
+        return new Route(stations, Route.namesOf(graph, stations), segmentMinutes, rootMinutes + distances[arrivalIdx]);
+    }
+
+    /**
+     * Выполняет поиск Дейкстры от станции ответвления, пока не будет извлечена станция
+     * назначения, пропуская станции и перегоны, отмеченные текущим номером поиска.
+     *
+     * @param departureIdx индекс станции ответвления.
+     * @param arrivalIdx индекс станции назначения.
+     */
+    private void search(int departureIdx, int arrivalIdx) {
+        spurSearches.increment();
+        for (int i = 0; i < numOfReached; i++) {
+            distances[reached[i]] = ShortestPathEngine.UNREACHABLE;
+        }
+        numOfReached = 0;
+        heap.clear();
+        distances[departureIdx] = 0;
+        previous[departureIdx] = -1;
+        reached[numOfReached++] = departureIdx;
+        heap.insertOrDecrease(departureIdx, 0);
+        while (!heap.isEmpty()) {
+            int station = heap.pollMin();
+            if (station == arrivalIdx) {
+                break;
+            }
+            int base = distances[station];
+            for (int e = graph.offsets[station]; e < graph.offsets[station + 1]; e++) {
+                int next = graph.targets[e];
+                int candidate = base + graph.weights[e];
+                if (candidate < distances[next] && bannedEdges[e] != stamp && bannedStations[next] != stamp) {
+                    if (distances[next] == ShortestPathEngine.UNREACHABLE) {
+                        reached[numOfReached++] = next;
+                    }
+                    distances[next] = candidate;
+                    previous[next] = station;
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Переходит к следующему номеру поиска. При переполнении счетчика отметки
+     * всех станций и перегонов сбрасываются.
+     */
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(bannedStations, 0);
+            Arrays.fill(bannedEdges, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Проверяет, есть ли среди маршрутов маршрут с теми же станциями.
+     *
+     * @param routes маршруты.
+     * @param route искомый маршрут.
+     * @return true, если такой маршрут уже есть.
+     */
+    private static boolean contains(Iterable<Route> routes, Route route) {
+        for (Route other : routes) {
+            if (Arrays.equals(other.stations, route.stations)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Класс LatencyHistogram накапливает распределение длительностей в наносекундах
+ * по логарифмически-линейным корзинам, как HdrHistogram. Значения до 64 хранятся
+ * точно, а для больших значений ширина корзины растет вместе со значением так,
+ * что относительная погрешность не превышает 1/32 (около 3 %).
+ *
+ * <p>Запись значения - одно атомарное увеличение счетчика корзины без блокировок
+ * и без создания объектов, поэтому гистограмму можно обновлять из нескольких потоков
+ * на пути обработки запроса.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int EXACT_VALUES = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int NUM_OF_BUCKETS = EXACT_VALUES + 57 * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_OF_BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записывает значение в гистограмму. Отрицательные значения считаются нулем.
+     *
+     * @param value значение в наносекундах.
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(bucketOf(v));
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Возвращает количество записанных значений.
+     *
+     * @return количество значений.
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Возвращает наибольшее записанное значение.
+     *
+     * @return наибольшее значение или 0, если значений нет.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Возвращает значение, не превышаемое заданной долей записанных значений.
+     * Результат - верхняя граница корзины, в которую попадает процентиль.
+     *
+     * @param percentile процентиль от 0 до 100.
+     * @return значение процентиля или 0, если значений нет.
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Определяет корзину для значения.
+     *
+     * @param value неотрицательное значение.
+     * @return номер корзины.
+     */
+    private static int bucketOf(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину.
+     *
+     * @param bucket номер корзины.
+     * @return верхняя граница корзины.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        int shift = (bucket - EXACT_VALUES) / SUB_BUCKETS + 1;
+        long top = (bucket - EXACT_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+        return shift >= 57 ? Long.MAX_VALUE : ((top + 1) << shift) - 1;
+    }
+}
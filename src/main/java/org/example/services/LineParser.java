@@ -0,0 +1,255 @@
+package org.example.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.example.exceptions.NetworkFormatException;
+
+/**
+ * Класс LineParser построчно читает текстовый файл в кодировке UTF-8 из канала NIO
+ * и делит строки на поля, разделенные запятыми.
+ *
+ * <p>В отличие от {@code Scanner} и {@code String.split}, строка не копируется и не
+ * разбивается на массив строк: границы полей запоминаются в массивах, а строка
+ * создается только для запрошенного поля. Числовые поля разбираются прямо из байтов.
+ * Данные читаются в буфер фиксированного размера, который растет, только если
+ * в него не помещается одна строка.</p>
+ *
+ * <p>Пустые строки пропускаются, окончания строк {@code \n} и {@code \r\n} и метка
+ * порядка байтов UTF-8 в начале файла допускаются. Ошибки формата создаются методом
+ * {@link #error(String)} и содержат номер текущей строки.</p>
+ */
+public class LineParser implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final byte SEPARATOR = ',';
+    private final ReadableByteChannel channel;
+    private final String fileName;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private int lineNumber;
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+    private int[] fieldStarts = new int[4];
+    private int[] fieldEnds = new int[4];
+
+    /**
+     * Конструктор класса LineParser.
+     *
+     * @param channel канал, из которого читается файл; закрывается методом {@link #close()}.
+     * @param fileName имя файла для сообщений об ошибках.
+     */
+    public LineParser(ReadableByteChannel channel, String fileName) {
+        this.channel = channel;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Переходит к следующей непустой строке.
+     *
+     * @return true, если строка прочитана; false, если файл закончился.
+     * @throws IOException если не удалось прочитать данные из канала.
+     */
+    public boolean nextLine() throws IOException {
+        byte[] bytes = buffer.array();
+        while (true) {
+            int newLine = indexOfNewLine(bytes);
+            if (newLine < 0 && !endOfInput) {
+                fill();
+                bytes = buffer.array();
+                continue;
+            }
+            if (newLine < 0 && position == limit) {
+                return false;
+            }
+            lineNumber++;
+            lineStart = position;
+            lineEnd = newLine < 0 ? limit : newLine;
+            position = newLine < 0 ? limit : newLine + 1;
+            if (lineNumber == 1 && lineEnd - lineStart >= 3 && bytes[lineStart] == (byte) 0xEF
+                    && bytes[lineStart + 1] == (byte) 0xBB && bytes[lineStart + 2] == (byte) 0xBF) {
+                lineStart += 3;
+            }
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (!isBlank(bytes, lineStart, lineEnd)) {
+                splitFields(bytes);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Возвращает номер текущей строки, начиная с 1. Пустые строки учитываются.
+     *
+     * @return номер строки.
+     */
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Возвращает текущую строку целиком без символов конца строки.
+     *
+     * @return текущая строка.
+     */
+    public String line() {
+        return new String(buffer.array(), lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает количество полей текущей строки.
+     *
+     * @return количество полей, разделенных запятыми.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Возвращает поле текущей строки.
+     *
+     * @param index номер поля, начиная с 0.
+     * @return значение поля.
+     */
+    public String field(int index) {
+        return new String(buffer.array(), fieldStarts[index], fieldEnds[index] - fieldStarts[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Разбирает поле текущей строки как целое число. Пробелы по краям допускаются.
+     *
+     * @param index номер поля, начиная с 0.
+     * @return значение поля.
+     * @throws NetworkFormatException если поле не является целым числом.
+     */
+    public int intField(int index) {
+        byte[] bytes = buffer.array();
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && bytes[start] == ' ') {
+            start++;
+        }
+        while (end > start && bytes[end - 1] == ' ') {
+            end--;
+        }
+        boolean negative = start < end && bytes[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw error("ожидается число, а найдено '" + field(index) + "'.");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || (value = value * 10 + digit) > Integer.MAX_VALUE) {
+                throw error("ожидается число, а найдено '" + field(index) + "'.");
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Создает исключение с описанием ошибки в текущей строке.
+     *
+     * @param message описание ошибки.
+     * @return исключение с именем файла и номером строки.
+     */
+    public NetworkFormatException error(String message) {
+        return new NetworkFormatException(fileName, lineNumber, message);
+    }
+
+    /**
+     * Закрывает канал.
+     *
+     * @throws IOException если канал не удалось закрыть.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Ищет конец строки в прочитанной части буфера.
+     *
+     * @param bytes содержимое буфера.
+     * @return позиция символа '\n' или -1, если он не найден.
+     */
+    private int indexOfNewLine(byte[] bytes) {
+        for (int i = position; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Сдвигает непрочитанный остаток в начало буфера и дочитывает данные из канала.
+     * Если остаток занимает весь буфер, буфер увеличивается вдвое.
+     *
+     * @throws IOException если не удалось прочитать данные из канала.
+     */
+    private void fill() throws IOException {
+        byte[] bytes = buffer.array();
+        int remaining = limit - position;
+        if (remaining == bytes.length) {
+            buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2));
+        } else {
+            System.arraycopy(bytes, position, bytes, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+        buffer.clear().position(limit);
+        int read = channel.read(buffer);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    /**
+     * Запоминает границы полей текущей строки.
+     *
+     * @param bytes содержимое буфера.
+     */
+    private void splitFields(byte[] bytes) {
+        fieldCount = 0;
+        int start = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || bytes[i] == SEPARATOR) {
+                if (fieldCount == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                }
+                fieldStarts[fieldCount] = start;
+                fieldEnds[fieldCount++] = i;
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, состоит ли участок буфера только из пробельных символов.
+     *
+     * @param bytes содержимое буфера.
+     * @param from начало участка.
+     * @param to конец участка, не включительно.
+     * @return true, если участок пустой или содержит только пробелы и табуляции.
+     */
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,9 +2,16 @@ package org.example.services;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Scanner;
 import java.util.stream.IntStream;
 
 import org.apache.logging.log4j.LogManager;
@@ -14,6 +21,12 @@ import org.example.Launcher;
 /**
  * Класс Matrix представляет собой структуру данных, которая хранит информацию о станциях и их взаимосвязях
  * в виде матрицы смежности. Он загружает данные из файлов и предоставляет методы для работы с ними.
+ *
+ * <p>Помимо матрицы смежности при загрузке строится компактный граф {@link Graph}. Матрица смежности
+ * занимает O(V²) памяти и может не строиться вовсе, если она не нужна.</p>
+ *
+ * <p>Файлы читаются построчно через {@link LineParser}; ошибка в файле сообщается
+ * исключением {@link org.example.exceptions.NetworkFormatException} с номером строки.</p>
  */
 public class Matrix {
 
@@ -21,7 +34,15 @@ public class Matrix {
     private static final int EMPTY_CELL = 0; // используем int вместо Integer для значений
     public int numOfTheStations;
     public ArrayList<String> stationsNames;
+    public StationIndex stationIndex;
     public int[][] adjacencyMatrix;
+    public Graph graph;
+    private final boolean withAdjacencyMatrix;
+    private final boolean fromFileSystem;
+    private int numOfTheEdges;
+    private int[] edgesFrom;
+    private int[] edgesTo;
+    private int[] edgesWeight;
 
     /**
      * Конструктор класса Matrix, который инициализирует матрицу смежности.
@@ -31,9 +52,52 @@ public class Matrix {
      * @throws FileNotFoundException если один из указанных файлов не найден.
      */
     public Matrix(String fileStations, String fileEdges) throws FileNotFoundException {
-        logger.info("Алгоритм заполнения матрицы смежности запущен.");
+        this(fileStations, fileEdges, true);
+    }
+
+    /**
+     * Конструктор класса Matrix, который загружает граф и, при необходимости, матрицу смежности.
+     *
+     * @param fileStations имя файла, содержащего названия станций.
+     * @param fileEdges имя файла, содержащего связи между станциями и их веса.
+     * @param withAdjacencyMatrix строить ли матрицу смежности; если false, поле adjacencyMatrix остается null.
+     * @throws FileNotFoundException если один из указанных файлов не найден.
+     */
+    public Matrix(String fileStations, String fileEdges, boolean withAdjacencyMatrix) throws FileNotFoundException {
+        this(fileStations, fileEdges, withAdjacencyMatrix, false);
+    }
+
+    /**
+     * Конструктор класса Matrix, который загружает граф из файлов файловой системы,
+     * а не из ресурсов приложения.
+     *
+     * @param fileStations путь к файлу, содержащему названия станций.
+     * @param fileEdges путь к файлу, содержащему связи между станциями и их веса.
+     * @param withAdjacencyMatrix строить ли матрицу смежности; если false, поле adjacencyMatrix остается null.
+     * @throws FileNotFoundException если один из указанных файлов не найден.
+     */
+    public Matrix(Path fileStations, Path fileEdges, boolean withAdjacencyMatrix) throws FileNotFoundException {
+        this(fileStations.toString(), fileEdges.toString(), withAdjacencyMatrix, true);
+    }
+
+    /**
+     * Конструктор класса Matrix, который загружает данные из ресурсов приложения или из файловой системы.
+     *
+     * @param fileStations имя файла, содержащего названия станций.
+     * @param fileEdges имя файла, содержащего связи между станциями и их веса.
+     * @param withAdjacencyMatrix строить ли матрицу смежности.
+     * @param fromFileSystem true, если имена файлов - пути в файловой системе.
+     * @throws FileNotFoundException если один из указанных файлов не найден.
+     */
+    private Matrix(String fileStations, String fileEdges, boolean withAdjacencyMatrix, boolean fromFileSystem)
+            throws FileNotFoundException {
+        this.withAdjacencyMatrix = withAdjacencyMatrix;
+        this.fromFileSystem = fromFileSystem;
+        logger.info(withAdjacencyMatrix ? "Алгоритм заполнения матрицы смежности запущен." : "Загрузка сети метрополитена запущена.");
+        long start = System.nanoTime();
         fillMatrix(fileStations, fileEdges);
-        logger.info("Матрица смежности успешно создана.");
+        Metrics.histogram("matrix.load").record(System.nanoTime() - start);
+        logger.info(withAdjacencyMatrix ? "Матрица смежности успешно создана." : "Сеть метрополитена успешно загружена.");
     }
 
     /**
@@ -46,25 +110,36 @@ public class Matrix {
     public void fillMatrix(String fileStations, String fileEdges) throws FileNotFoundException {
         setStationNamesFromFile(fileStations);
         setNumOfTheStations();
-        adjacencyMatrix = new int[numOfTheStations][numOfTheStations];
-        Arrays.stream(adjacencyMatrix).forEach(row -> Arrays.fill(row, Integer.MAX_VALUE));
+        if (withAdjacencyMatrix) {
+            adjacencyMatrix = new int[numOfTheStations][numOfTheStations];
+            Arrays.stream(adjacencyMatrix).forEach(row -> Arrays.fill(row, Integer.MAX_VALUE));
+        }
         initMatrix(fileEdges);
+        graph = new Graph(stationsNames, stationIndex, edgesFrom, edgesTo, edgesWeight, numOfTheEdges);
+        edgesFrom = edgesTo = edgesWeight = null;
     }
 
     /**
      * Считывает названия станций из указанного файла и сохраняет их в список.
+     * Каждая непустая строка файла - название одной станции.
      *
      * @param fileName имя файла, содержащего названия станций.
      * @throws FileNotFoundException если файл не найден.
+     * @throws UncheckedIOException если файл не удалось прочитать.
      */
     public void setStationNamesFromFile(String fileName) throws FileNotFoundException {
-        Scanner namesScanner = new Scanner(Launcher.class.getResourceAsStream(fileName));
         stationsNames = new ArrayList<>();
-        while (namesScanner.hasNextLine()) {
-            stationsNames.add(namesScanner.nextLine());
+        try (LineParser parser = new LineParser(open(fileName), fileName)) {
+            while (parser.nextLine()) {
+                stationsNames.add(parser.line());
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл " + fileName, e);
         }
+        stationIndex = new StationIndex(stationsNames);
         logger.info("Названия станций успешно считаны.");
-        namesScanner.close(); // Закрываем сканер
     }
 
     /**
@@ -76,40 +151,106 @@ public class Matrix {
     }
     /**
      * инициализирует матрицу смежности, считывая данные из указанного файла.
+     * Каждая непустая строка файла имеет вид {@code станция,станция,минуты}.
      *
      * @param fileName имя файла, содержащего связи между станциями и их веса.
      * @throws FileNotFoundException если файл не найден.
+     * @throws org.example.exceptions.NetworkFormatException если строка файла заполнена неправильно.
+     * @throws UncheckedIOException если файл не удалось прочитать.
      */
     public void initMatrix(String fileName) throws FileNotFoundException {
-        Scanner matrixScanner = new Scanner(Launcher.class.getResourceAsStream(fileName));
-        String[] node;
-        while (matrixScanner.hasNextLine()) {
-            node = matrixScanner.nextLine().split(",");
-            try {
-                int station1Index = getIndexOfTheStationForInit(node[0]);
-                int station2Index = getIndexOfTheStationForInit(node[1]);
-                int weight = Integer.parseInt(node[2]);
+        numOfTheEdges = 0;
+        edgesFrom = new int[16];
+        edgesTo = new int[16];
+        edgesWeight = new int[16];
+        try (LineParser parser = new LineParser(open(fileName), fileName)) {
+            while (parser.nextLine()) {
+                if (parser.fieldCount() != 3) {
+                    throw parser.error("ожидается 'станция,станция,минуты', а найдено полей: " + parser.fieldCount() + ".");
+                }
+                int station1Index = indexOfStationInLine(parser, 0);
+                int station2Index = indexOfStationInLine(parser, 1);
+                int weight = parser.intField(2);
+                if (weight < 0) {
+                    throw parser.error("время в пути не может быть отрицательным.");
+                }
                 addEdge(station1Index, station2Index, weight);
-            } catch (Exception e) {
-                throw e;
             }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл " + fileName, e);
         }
-        matrixScanner.close();
 
         // Заполняем диагональ нулями
-        IntStream.range(0, numOfTheStations).forEach(i -> adjacencyMatrix[i][i] = EMPTY_CELL);
+        if (adjacencyMatrix != null) {
+            IntStream.range(0, numOfTheStations).forEach(i -> adjacencyMatrix[i][i] = EMPTY_CELL);
+        }
         logger.info("Данные о расстояниях успешно загружены.");
     }
 
+    /**
+     * Открывает файл для чтения из файловой системы или из ресурсов приложения,
+     * в зависимости от того, как создан объект.
+     *
+     * @param fileName путь к файлу или имя файла в ресурсах рядом с классом {@link Launcher}.
+     * @return канал для чтения файла.
+     * @throws IOException если файл не найден или не может быть открыт.
+     */
+    private ReadableByteChannel open(String fileName) throws IOException {
+        return open(fileName, fromFileSystem);
+    }
+
+    /**
+     * Открывает файл для чтения из файловой системы или из ресурсов приложения.
+     *
+     * @param fileName путь к файлу или имя файла в ресурсах рядом с классом {@link Launcher}.
+     * @param fromFileSystem true, если имя файла - путь в файловой системе.
+     * @return канал для чтения файла.
+     * @throws IOException если файл не найден или не может быть открыт.
+     */
+    static ReadableByteChannel open(String fileName, boolean fromFileSystem) throws IOException {
+        if (fromFileSystem) {
+            try {
+                return FileChannel.open(Path.of(fileName));
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException("Файл " + fileName + " не найден.");
+            }
+        }
+        InputStream stream = Launcher.class.getResourceAsStream(fileName);
+        if (stream == null) {
+            throw new FileNotFoundException("Файл " + fileName + " не найден.");
+        }
+        return Channels.newChannel(stream);
+    }
+
+    /**
+     * Получает индекс станции, указанной в поле строки файла ребер.
+     *
+     * @param parser разбор файла ребер, стоящий на текущей строке.
+     * @param field номер поля с названием станции.
+     * @return индекс станции в списке названий.
+     * @throws org.example.exceptions.NetworkFormatException если станция не найдена в списке.
+     */
+    private int indexOfStationInLine(LineParser parser, int field) {
+        String stationName = parser.field(field);
+        int index = stationIndex.indexOf(stationName);
+        if (index == -1) {
+            throw parser.error("станция '" + stationName + "' не найдена, проверьте правильность заполнения файлов.");
+        }
+        return index;
+    }
+
     /**
      * Получает индекс станции по её названию для инициализации матрицы.
+     * Поиск выполняется по индексу названий {@link StationIndex} за O(1).
      *
      * @param stationName название станции.
      * @return индекс станции в списке названий.
      * @throws ArrayIndexOutOfBoundsException если станция не найдена в списке.
      */
     public int getIndexOfTheStationForInit(String stationName) {
-        int index = this.stationsNames.indexOf(stationName);
+        int index = this.stationIndex.indexOf(stationName);
         if (index == -1) {
             throw new ArrayIndexOutOfBoundsException("Станция '" + stationName + "' не найдена, проверьте правильность заполнения файлов.");
         }
@@ -117,7 +258,8 @@ public class Matrix {
     }
 
     /**
-     * Получает индекс станции по её названию.
+     * Получает индекс станции по её названию. Регистр букв, пробелы по краям
+     * и различие букв Ё и Е не учитываются.
      *
      * @param stationName название станции.
      * @return индекс станции в списке названий.
@@ -125,22 +267,26 @@ public class Matrix {
      * @throws ArrayIndexOutOfBoundsException если станция не найдена в списке.
      */
     public int getIndexOfTheStation(String stationName) {
-        if (stationName.isEmpty()) {
+        if (stationName.isBlank()) {
             logger.error("Поле не заполнено.");
             throw new IllegalArgumentException("Заполните все поля.");
         }
-        logger.info("Начат поиск станции {}", stationName);
-        int index = this.stationsNames.indexOf(stationName);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Начат поиск станции {}", stationName);
+        }
+        int index = this.stationIndex.indexOf(stationName);
         if (index == -1) {
             logger.error("Станция {} не найдена", stationName);
             throw new ArrayIndexOutOfBoundsException("Станция '" + stationName + "' не найдена.");
         }
-        logger.info("индекс станции {} успешно найден", stationName);
+        if (logger.isDebugEnabled()) {
+            logger.debug("индекс станции {} успешно найден", stationName);
+        }
         return index;
     }
 
     /**
-     * добавляет ребро между двумя станциями в матрицу смежности с указанным весом.
+     * добавляет ребро между двумя станциями в список ребер графа и в матрицу смежности с указанным весом.
      *
      * <p>Метод обновляет значения в матрице смежности, устанавливая вес ребра между
      * станциями, заданными индексами {@code station1} и {@code station2}. Если граф
@@ -155,8 +301,30 @@ public class Matrix {
      */
     private void addEdge(int station1, int station2, int weight) {
         if (station1 >= 0 && station2 >= 0 && station1 < numOfTheStations && station2 < numOfTheStations) {
-            adjacencyMatrix[station1][station2] = weight;
-            adjacencyMatrix[station2][station1] = weight; // Если граф неориентированный
+            appendEdge(station1, station2, weight);
+            if (adjacencyMatrix != null) {
+                adjacencyMatrix[station1][station2] = weight;
+                adjacencyMatrix[station2][station1] = weight; // Если граф неориентированный
+            }
+        }
+    }
+
+    /**
+     * Сохраняет ребро в список ребер, из которого затем строится граф {@link Graph}.
+     * Массивы ребер увеличиваются вдвое при заполнении.
+     *
+     * @param station1 индекс первой станции.
+     * @param station2 индекс второй станции.
+     * @param weight вес ребра между двумя станциями.
+     */
+    private void appendEdge(int station1, int station2, int weight) {
+        if (numOfTheEdges == edgesFrom.length) {
+            edgesFrom = Arrays.copyOf(edgesFrom, numOfTheEdges * 2);
+            edgesTo = Arrays.copyOf(edgesTo, numOfTheEdges * 2);
+            edgesWeight = Arrays.copyOf(edgesWeight, numOfTheEdges * 2);
         }
+        edgesFrom[numOfTheEdges] = station1;
+        edgesTo[numOfTheEdges] = station2;
+        edgesWeight[numOfTheEdges++] = weight;
     }
 }
\ No newline at end of file
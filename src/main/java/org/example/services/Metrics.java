@@ -0,0 +1,147 @@
+package org.example.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс Metrics - реестр метрик приложения: счетчиков ({@link LongAdder}) и гистограмм
+ * длительностей ({@link LatencyHistogram}). Метрики создаются по имени при первом обращении;
+ * на пути обработки запроса ссылку на метрику следует получить заранее и хранить
+ * в статическом поле, тогда обновление не требует поиска по имени.
+ *
+ * <p>Метрики доступны через JMX под именем {@code org.example:type=Metrics}
+ * и могут периодически записываться в журнал методом {@link #startPeriodicDump(long)}.
+ * Счетчики с окончаниями {@code .hit} и {@code .miss} считаются статистикой кэша,
+ * и для них вычисляется доля попаданий.</p>
+ */
+public class Metrics implements MetricsMXBean {
+
+    private static final Logger logger = LogManager.getLogger(Metrics.class);
+    private static final Metrics INSTANCE = new Metrics();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumpExecutor;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("org.example:type=Metrics"));
+        } catch (JMException e) {
+            logger.warn("Не удалось зарегистрировать метрики в JMX: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Конструктор закрыт: реестр один на приложение.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Возвращает реестр метрик приложения.
+     *
+     * @return реестр метрик.
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Возвращает счетчик по имени, создавая его при первом обращении.
+     *
+     * @param name имя счетчика.
+     * @return счетчик.
+     */
+    public static LongAdder counter(String name) {
+        return INSTANCE.counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Возвращает гистограмму длительностей по имени, создавая ее при первом обращении.
+     *
+     * @param name имя гистограммы.
+     * @return гистограмма.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return INSTANCE.histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Запускает фоновую запись отчета о метриках в журнал с заданным периодом.
+     * Повторный вызов не запускает второй поток.
+     *
+     * @param periodSeconds период записи в секундах.
+     */
+    public static synchronized void startPeriodicDump(long periodSeconds) {
+        if (INSTANCE.dumpExecutor != null) {
+            return;
+        }
+        INSTANCE.dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        INSTANCE.dumpExecutor.scheduleAtFixedRate(() -> logger.info("Метрики:\n{}", INSTANCE.dump()),
+                periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getLatencies() {
+        Map<String, Long> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.count());
+            values.put(name + ".p50", histogram.valueAtPercentile(50) / 1_000);
+            values.put(name + ".p99", histogram.valueAtPercentile(99) / 1_000);
+            values.put(name + ".max", histogram.max() / 1_000);
+        });
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getHitRates() {
+        Map<String, Double> values = new TreeMap<>();
+        counters.forEach((name, counter) -> {
+            if (name.endsWith(".hit")) {
+                String cache = name.substring(0, name.length() - ".hit".length());
+                long hits = counter.sum();
+                LongAdder misses = counters.get(cache + ".miss");
+                long total = hits + (misses == null ? 0 : misses.sum());
+                values.put(cache, total == 0 ? 0.0 : (double) hits / total);
+            }
+        });
+        return values;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        getCounters().forEach((name, value) -> text.append("counter ").append(name).append('=').append(value).append('\n'));
+        new TreeMap<>(histograms).forEach((name, histogram) -> text.append("latency ").append(name)
+                .append(" count=").append(histogram.count())
+                .append(" p50=").append(histogram.valueAtPercentile(50) / 1_000).append("us")
+                .append(" p90=").append(histogram.valueAtPercentile(90) / 1_000).append("us")
+                .append(" p99=").append(histogram.valueAtPercentile(99) / 1_000).append("us")
+                .append(" max=").append(histogram.max() / 1_000).append("us\n"));
+        getHitRates().forEach((name, rate) -> text.append("hit-rate ").append(name).append('=')
+                .append(String.format("%.3f", rate)).append('\n'));
+        return text.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.services;
+
+import java.util.Map;
+
+/**
+ * Интерфейс MetricsMXBean описывает метрики приложения, доступные через JMX
+ * (например, в JConsole или VisualVM) под именем {@code org.example:type=Metrics}.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Возвращает значения всех счетчиков.
+     *
+     * @return значения счетчиков по их именам.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Возвращает количество значений и процентили всех гистограмм в микросекундах.
+     * Ключи имеют вид {@code имя.count}, {@code имя.p50}, {@code имя.p99}, {@code имя.max}.
+     *
+     * @return значения гистограмм по их именам.
+     */
+    Map<String, Long> getLatencies();
+
+    /**
+     * Возвращает долю попаданий для каждой пары счетчиков {@code имя.hit} и {@code имя.miss}.
+     *
+     * @return доля попаданий от 0 до 1 по имени кэша.
+     */
+    Map<String, Double> getHitRates();
+
+    /**
+     * Возвращает все метрики в текстовом виде.
+     *
+     * @return текстовый отчет.
+     */
+    String dump();
+}
@@ -0,0 +1,172 @@
+package org.example.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс NetworkFile сохраняет граф метрополитена в двоичный файл сети и загружает его.
+ * Текстовые файлы станций и ребер компилируются в такой файл один раз, после чего
+ * при запуске не нужно разбирать текст и искать станции по названиям.
+ *
+ * <p>Формат файла (все числа в порядке байтов little-endian):</p>
+ * <pre>
+ * int   сигнатура "SNET"
+ * int   версия формата
+ * int   количество станций V
+ * int   количество элементов списков соседей A (удвоенное количество ребер)
+ * long  отпечаток графа {@link Graph#fingerprint()}
+ * int   длина блока названий в байтах N
+ * byte[N]  названия станций в UTF-8, каждое завершается символом '\n',
+ *          блок дополняется нулями до длины, кратной 4
+ * int[V + 1]  offsets
+ * int[A]      targets
+ * int[A]      weights
+ * </pre>
+ *
+ * <p>Файл отображается в память, и массивы графа копируются из него одной операцией
+ * на массив. Перед созданием графа отпечаток данных сверяется с заголовком, поэтому
+ * поврежденный файл не будет использован.</p>
+ */
+public class NetworkFile {
+
+    private static final Logger logger = LogManager.getLogger(NetworkFile.class);
+    private static final int MAGIC = 0x54454E53; // "SNET"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 4;
+
+    /**
+     * Конструктор закрыт: класс содержит только статические методы.
+     */
+    private NetworkFile() {
+    }
+
+    /**
+     * Сохраняет граф в двоичный файл сети. Файл заменяется целиком, чтобы при сбое
+     * не остался частично записанный файл.
+     *
+     * @param graph граф метрополитена.
+     * @param target путь к файлу сети.
+     * @throws IOException если файл не удалось записать.
+     */
+    public static void compile(Graph graph, Path target) throws IOException {
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        for (String name : graph.stationsNames) {
+            names.writeBytes(name.getBytes(StandardCharsets.UTF_8));
+            names.write('\n');
+        }
+        int namesBytes = names.size();
+        int paddedNamesBytes = (namesBytes + 3) & ~3;
+        long size = HEADER_BYTES + paddedNamesBytes
+                + 4L * (graph.offsets.length + graph.targets.length + graph.weights.length);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Граф слишком велик для файла сети.");
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(graph.numOfTheStations).putInt(graph.targets.length)
+                    .putLong(graph.fingerprint()).putInt(namesBytes);
+            buffer.put(names.toByteArray());
+            buffer.position(HEADER_BYTES + paddedNamesBytes);
+            buffer.asIntBuffer().put(graph.offsets);
+            buffer.position(buffer.position() + 4 * graph.offsets.length);
+            buffer.asIntBuffer().put(graph.targets);
+            buffer.position(buffer.position() + 4 * graph.targets.length);
+            buffer.asIntBuffer().put(graph.weights);
+            buffer.force();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Граф сохранен в файл сети {}.", target);
+    }
+
+    /**
+     * Загружает граф из двоичного файла сети, отображая файл в память.
+     *
+     * @param source путь к файлу сети.
+     * @return граф метрополитена.
+     * @throws IOException если файл не удалось прочитать, он имеет другой формат или поврежден.
+     */
+    public static Graph load(Path source) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Файл " + source + " не является файлом сети.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Файл " + source + " не является файлом сети.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Файл сети " + source + " имеет версию " + version
+                        + ", поддерживается версия " + VERSION + ". Скомпилируйте его заново.");
+            }
+            int numOfStations = buffer.getInt();
+            int numOfArcs = buffer.getInt();
+            long fingerprint = buffer.getLong();
+            int namesBytes = buffer.getInt();
+            int paddedNamesBytes = (namesBytes + 3) & ~3;
+            if (numOfStations < 0 || numOfArcs < 0 || namesBytes < 0 || size != HEADER_BYTES + paddedNamesBytes
+                    + 4L * (numOfStations + 1L + 2L * numOfArcs)) {
+                throw new IOException("Файл сети " + source + " поврежден.");
+            }
+
+            byte[] namesBlock = new byte[namesBytes];
+            buffer.get(namesBlock);
+            List<String> names = new ArrayList<>(numOfStations);
+            int nameStart = 0;
+            for (int i = 0; i < namesBytes; i++) {
+                if (namesBlock[i] == '\n') {
+                    names.add(new String(namesBlock, nameStart, i - nameStart, StandardCharsets.UTF_8));
+                    nameStart = i + 1;
+                }
+            }
+            if (names.size() != numOfStations) {
+                throw new IOException("Файл сети " + source + " поврежден.");
+            }
+
+            int[] offsets = new int[numOfStations + 1];
+            int[] targets = new int[numOfArcs];
+            int[] weights = new int[numOfArcs];
+            buffer.position(HEADER_BYTES + paddedNamesBytes);
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + 4 * offsets.length);
+            buffer.asIntBuffer().get(targets);
+            buffer.position(buffer.position() + 4 * targets.length);
+            buffer.asIntBuffer().get(weights);
+
+            if (Graph.fingerprint(namesBlock, namesBytes, offsets, targets, weights) != fingerprint) {
+                throw new IOException("Файл сети " + source + " поврежден: отпечаток графа не совпадает.");
+            }
+            Graph graph;
+            try {
+                graph = new Graph(names, offsets, targets, weights);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Файл сети " + source + " поврежден: " + e.getMessage(), e);
+            }
+            Metrics.histogram("network.load").record(System.nanoTime() - start);
+            logger.info("Граф загружен из файла сети {} за {} мс.", source, (System.nanoTime() - start) / 1_000_000);
+            return graph;
+        }
+    }
+}
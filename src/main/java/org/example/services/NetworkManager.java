@@ -0,0 +1,191 @@
+package org.example.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс NetworkManager загружает сеть метрополитена из внешних файлов станций и ребер,
+ * следит за их изменением и перестраивает снимок сети {@link NetworkSnapshot} без
+ * перезапуска приложения.
+ *
+ * <p>Новый снимок строится в фоновом потоке и публикуется атомарной заменой ссылки.
+ * Запросы получают текущий снимок методом {@link #current()} без блокировок и
+ * завершаются на том снимке, который получили, даже если в это время опубликован новый.
+ * Если новые файлы содержат ошибку, она записывается в журнал, а запросы продолжают
+ * работать на прежнем снимке.</p>
+ *
+ * <p>Снимки строятся без таблицы расстояний для всех пар станций: она занимает O(V²)
+ * памяти, и интерфейс строит ее сам в фоновом потоке.</p>
+ *
+ * <p>Редакторы часто записывают файл в несколько приемов, поэтому после изменения
+ * перестройка ненадолго откладывается, и серия изменений
+ * приводит к одной перестройке.</p>
+ */
+public class NetworkManager implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(NetworkManager.class);
+    private static final long RELOAD_DELAY_MILLIS = 300;
+    private final Path stationsFile;
+    private final Path edgesFile;
+    private final AtomicReference<NetworkSnapshot> current = new AtomicReference<>();
+    private final List<Consumer<NetworkSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService rebuilder;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private ScheduledFuture<?> pendingReload;
+
+    /**
+     * Конструктор класса NetworkManager, который сразу загружает первый снимок сети
+     * и начинает следить за файлами.
+     *
+     * @param stationsFile путь к файлу, содержащему названия станций.
+     * @param edgesFile путь к файлу, содержащему связи между станциями и их веса.
+     * @throws IOException если файлы не удалось прочитать или за ними нельзя следить.
+     * @throws IllegalArgumentException если файлы заполнены неправильно.
+     */
+    public NetworkManager(Path stationsFile, Path edgesFile) throws IOException {
+        this.stationsFile = stationsFile.toAbsolutePath();
+        this.edgesFile = edgesFile.toAbsolutePath();
+        current.set(build());
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "network-rebuild"));
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.stationsFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        if (!this.edgesFile.getParent().equals(this.stationsFile.getParent())) {
+            this.edgesFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        this.watcher = daemon(this::watch, "network-watch");
+        watcher.start();
+        logger.info("Отслеживаются файлы сети {} и {}.", this.stationsFile, this.edgesFile);
+    }
+
+    /**
+     * Возвращает текущий снимок сети. Метод не блокируется.
+     *
+     * @return текущий снимок сети.
+     */
+    public NetworkSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Добавляет обработчик, который вызывается в фоновом потоке после публикации нового снимка.
+     *
+     * @param listener обработчик нового снимка.
+     */
+    public void addListener(Consumer<NetworkSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Запрашивает перестройку снимка сети, не дожидаясь ее окончания.
+     * Несколько запросов подряд объединяются в одну перестройку.
+     */
+    public synchronized void reload() {
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = rebuilder.schedule(this::rebuild, RELOAD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Прекращает слежение за файлами и останавливает фоновые потоки.
+     *
+     * @throws IOException если не удалось закрыть службу слежения.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Перестраивает снимок сети и публикует его. Ошибка перестройки не заменяет текущий снимок.
+     */
+    private void rebuild() {
+        long start = System.nanoTime();
+        try {
+            NetworkSnapshot snapshot = build();
+            current.set(snapshot);
+            Metrics.counter("network.reloads").increment();
+            Metrics.histogram("network.rebuild").record(System.nanoTime() - start);
+            logger.info("Сеть перезагружена: станций {}, версия {}.", snapshot.graph.numOfTheStations, snapshot.version);
+            for (Consumer<NetworkSnapshot> listener : listeners) {
+                listener.accept(snapshot);
+            }
+        } catch (IOException | RuntimeException e) {
+            Metrics.counter("network.reload.failures").increment();
+            logger.error("Не удалось перезагрузить сеть, используется прежняя версия: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Загружает граф из файлов и строит по нему снимок сети без таблицы расстояний.
+     *
+     * @return новый снимок сети.
+     * @throws IOException если файлы не удалось прочитать.
+     */
+    private NetworkSnapshot build() throws IOException {
+        return new NetworkSnapshot(Graph.fromFiles(stationsFile, edgesFile), null);
+    }
+
+    /**
+     * Ожидает события изменения файлов в каталогах и запрашивает перестройку,
+     * если изменился файл станций или файл ребер.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path) {
+                        Path file = directory.resolve((Path) event.context());
+                        changed |= file.equals(stationsFile) || file.equals(edgesFile);
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Файлы сети изменены, запланирована перезагрузка.");
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Слежение остановлено методом close
+        }
+    }
+
+    /**
+     * Создает фоновый поток, который не мешает завершению приложения.
+     *
+     * @param runnable задача потока.
+     * @param name имя потока.
+     * @return созданный поток.
+     */
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
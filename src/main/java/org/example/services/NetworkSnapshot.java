@@ -0,0 +1,54 @@
+package org.example.services;
+
+/**
+ * Класс NetworkSnapshot - неизменяемый снимок сети метрополитена: граф, таблица
+ * расстояний для всех пар станций и подсказки названий, построенные по одним и тем же
+ * данным. Все части снимка потокобезопасны.
+ *
+ * <p>Таблица занимает O(V²) памяти и нужна только интерфейсу, поэтому снимок для сервера
+ * маршрутов и больших сетей строится без нее: поле {@code table} равно null. Интерфейс
+ * строит таблицу в фоновом потоке и до ее готовности ищет маршруты по графу.</p>
+ *
+ * <p>Запрос должен получить снимок один раз и работать только с ним: тогда индексы
+ * станций, расстояния и названия согласованы, даже если во время запроса сеть была
+ * перезагружена.</p>
+ */
+public class NetworkSnapshot {
+
+    public final long version;
+    public final Graph graph;
+    public final AllPairsTable table;
+    public final StationAutocomplete autocomplete;
+
+    /**
+     * Конструктор класса NetworkSnapshot.
+     *
+     * @param graph граф метрополитена.
+     * @param table таблица расстояний, построенная для этого графа, или null, если она не нужна.
+     */
+    public NetworkSnapshot(Graph graph, AllPairsTable table) {
+        this.version = graph.generation;
+        this.graph = graph;
+        this.table = table;
+        this.autocomplete = new StationAutocomplete(graph.stationsNames);
+    }
+
+    /**
+     * Получает индекс станции по её названию так же, как {@link Matrix#getIndexOfTheStation(String)}.
+     *
+     * @param stationName название станции.
+     * @return индекс станции.
+     * @throws IllegalArgumentException если название станции пустое.
+     * @throws ArrayIndexOutOfBoundsException если станция не найдена.
+     */
+    public int indexOf(String stationName) {
+        if (stationName.isBlank()) {
+            throw new IllegalArgumentException("Заполните все поля.");
+        }
+        int index = graph.stationIndex.indexOf(stationName);
+        if (index == -1) {
+            throw new ArrayIndexOutOfBoundsException("Станция '" + stationName + "' не найдена.");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.services;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс PooledDijkstra реализует алгоритм Дейкстры с двоичной кучей, как {@link HeapDijkstra},
+ * но, в отличие от него, может использоваться из многих потоков одновременно.
+ *
+ * <p>Рабочие массивы каждого поиска берутся из пула {@link SearchWorkspacePool}: каждый поток
+ * получает свой экземпляр, а массивы не очищаются перед поиском, а сбрасываются номером
+ * поиска. Поэтому после того, как каждый поток выполнил первый запрос, запросы не создают
+ * объектов, кроме результата {@link #route(int, int)}.</p>
+ *
+ * <p>Метод {@link #distances(int[], int[], int[])} рассчитывает время в пути для массива пар
+ * станций, распределяя пары по потокам пула ForkJoin. Результат записывается в переданный
+ * массив, а одни и те же рабочие массивы используются для всех пар, обработанных потоком.</p>
+ */
+public class PooledDijkstra implements ShortestPathEngine {
+
+    private static final LongAdder searches = Metrics.counter("dijkstra.pooled.searches");
+    private static final LongAdder settledStations = Metrics.counter("dijkstra.pooled.settled");
+    private static final LatencyHistogram searchLatency = Metrics.histogram("dijkstra.pooled.search");
+    private static final LatencyHistogram batchLatency = Metrics.histogram("dijkstra.pooled.batch");
+    private static final int PAIRS_PER_TASK = 256;
+    private final Graph graph;
+    private final ForkJoinPool pool;
+    private final SearchWorkspacePool workspaces;
+
+    /**
+     * Конструктор класса PooledDijkstra, который выполняет пакетные запросы в общем пуле ForkJoin.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     */
+    public PooledDijkstra(Graph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Конструктор класса PooledDijkstra.
+     *
+     * @param graph граф метрополитена, на котором выполняется поиск.
+     * @param pool пул ForkJoin для пакетных запросов.
+     */
+    public PooledDijkstra(Graph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+        this.workspaces = new SearchWorkspacePool(graph.numOfTheStations);
+    }
+
+    /**
+     * Проверяет, работает ли поиск на указанном графе.
+     *
+     * @param graph граф.
+     * @return true, если поиск создан для этого графа.
+     */
+    public boolean isFor(Graph graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Находит минимальное время в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    @Override
+    public int distance(int departureIdx, int arrivalIdx) {
+        try (SearchWorkspace workspace = workspaces.lease()) {
+            search(workspace, departureIdx, arrivalIdx);
+            return workspace.distance(arrivalIdx);
+        }
+    }
+
+    /**
+     * Находит маршрут с минимальным временем в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    @Override
+    public Route route(int departureIdx, int arrivalIdx) {
+        try (SearchWorkspace workspace = workspaces.lease()) {
+            search(workspace, departureIdx, arrivalIdx);
+            if (workspace.distance(arrivalIdx) == UNREACHABLE) {
+                return Route.notFound();
+            }
+            // Все станции маршрута достигнуты в этом поиске, поэтому их расстояния в массиве актуальны
+            return Route.fromPredecessors(graph, workspace.distances, workspace.previous, departureIdx, arrivalIdx);
+        }
+    }
+
+    /**
+     * Находит минимальное время в пути для каждой пары станций, распределяя пары
+     * по потокам пула ForkJoin.
+     *
+     * @param departures индексы станций отправления.
+     * @param arrivals индексы станций назначения в том же порядке.
+     * @param minutesOut массив не короче массива пар, в который записывается время в пути;
+     *                   для недостижимых станций - {@link #UNREACHABLE}.
+     * @throws IllegalArgumentException если длины массивов не согласованы.
+     */
+    public void distances(int[] departures, int[] arrivals, int[] minutesOut) {
+        if (arrivals.length != departures.length || minutesOut.length < departures.length) {
+            throw new IllegalArgumentException("Количество станций отправления, станций назначения и мест для результата не совпадает.");
+        }
+        long start = System.nanoTime();
+        pool.invoke(new BatchTask(departures, arrivals, minutesOut, 0, departures.length));
+        batchLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Выполняет поиск от станции отправления, пока не будет извлечена станция назначения.
+     *
+     * @param workspace рабочие массивы, подготовленные к поиску.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     */
+    private void search(SearchWorkspace workspace, int departureIdx, int arrivalIdx) {
+        long start = System.nanoTime();
+        IndexedMinHeap heap = workspace.heap;
+        workspace.reach(departureIdx, 0, -1);
+        heap.insertOrDecrease(departureIdx, 0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int currentStation = heap.pollMin();
+            settled++;
+            if (currentStation == arrivalIdx) {
+                break;
+            }
+            int base = workspace.distances[currentStation];
+            for (int e = graph.offsets[currentStation]; e < graph.offsets[currentStation + 1]; e++) {
+                int next = graph.targets[e];
+                int candidate = base + graph.weights[e];
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, currentStation);
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+        searches.increment();
+        settledStations.add(settled);
+        searchLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Задача расчета диапазона пар станций. Диапазон делится пополам, пока не станет
+     * достаточно малым; все пары диапазона рассчитываются на одних рабочих массивах.
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private final int[] departures;
+        private final int[] arrivals;
+        private final int[] minutesOut;
+        private final int from;
+        private final int to;
+
+        BatchTask(int[] departures, int[] arrivals, int[] minutesOut, int from, int to) {
+            this.departures = departures;
+            this.arrivals = arrivals;
+            this.minutesOut = minutesOut;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PAIRS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(departures, arrivals, minutesOut, from, middle),
+                        new BatchTask(departures, arrivals, minutesOut, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                try (SearchWorkspace workspace = workspaces.lease()) {
+                    search(workspace, departures[i], arrivals[i]);
+                    minutesOut[i] = workspace.distance(arrivals[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Класс QueryLog записывает в журнал одну итоговую строку на каждый запрос маршрута.
+ * Строка содержит источник запроса, индексы станций, найденное время и длительность
+ * обработки в формате {@code ключ=значение}, удобном для разбора.
+ *
+ * <p>Числа передаются через {@code Unbox.box}, который использует заранее выделенные
+ * буферы log4j, поэтому запись не создает новых объектов.</p>
+ *
+ * <p>Длительность запроса также записывается в гистограмму {@code query.<источник>}
+ * реестра {@link Metrics}.</p>
+ */
+public class QueryLog {
+
+    private static final Logger logger = LogManager.getLogger(QueryLog.class);
+    private static final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Записывает итоговую строку запроса.
+     *
+     * @param source источник запроса, например {@code ui} или {@code http}.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции прибытия.
+     * @param minutes найденное время в пути или {@link ShortestPathEngine#UNREACHABLE}.
+     * @param nanos длительность обработки запроса в наносекундах.
+     */
+    public static void summary(String source, int departureIdx, int arrivalIdx, int minutes, long nanos) {
+        // Имя гистограммы собирается только при первом запросе из источника
+        latencies.computeIfAbsent(source, key -> Metrics.histogram("query." + key)).record(nanos);
+        if (logger.isInfoEnabled()) {
+            logger.info("query source={} from={} to={} minutes={} micros={}",
+                    source, box(departureIdx), box(arrivalIdx), box(minutes), box(nanos / 1_000));
+        }
+    }
+}
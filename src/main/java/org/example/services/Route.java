@@ -0,0 +1,135 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Класс Route описывает найденный маршрут между двумя станциями: упорядоченный список
+ * станций от станции отправления до станции назначения, время в пути на каждом перегоне
+ * и общее время в минутах.
+ *
+ * <p>Маршрут восстанавливается по массиву предшественников, заполненному во время поиска,
+ * поэтому повторный поиск не требуется. Если станция назначения недостижима, маршрут
+ * не содержит станций, а общее время равно {@link ShortestPathEngine#UNREACHABLE}.</p>
+ *
+ * <p>Один и тот же маршрут может храниться в кэше {@link RouteCache} и передаваться
+ * нескольким потокам, поэтому массивы {@code stations} и {@code segmentMinutes}
+ * предназначены только для чтения.</p>
+ */
+public class Route {
+
+    public final int[] stations;
+    public final List<String> stationsNames;
+    public final int[] segmentMinutes;
+    public final int totalMinutes;
+
+    /**
+     * Конструктор класса Route.
+     *
+     * @param stations индексы станций маршрута по порядку.
+     * @param stationsNames названия станций маршрута по порядку.
+     * @param segmentMinutes время в пути на каждом перегоне; на один элемент меньше, чем станций.
+     * @param totalMinutes общее время в пути в минутах.
+     */
+    public Route(int[] stations, List<String> stationsNames, int[] segmentMinutes, int totalMinutes) {
+        this.stations = stations;
+        this.stationsNames = Collections.unmodifiableList(stationsNames);
+        this.segmentMinutes = segmentMinutes;
+        this.totalMinutes = totalMinutes;
+    }
+
+    /**
+     * Восстанавливает маршрут по массивам расстояний и предшественников.
+     *
+     * @param graph граф, на котором выполнялся поиск.
+     * @param distances массив расстояний от станции отправления.
+     * @param previous массив предшественников: previous[v] - станция, из которой пришли в v.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут или пустой маршрут, если станция назначения недостижима.
+     */
+    public static Route fromPredecessors(Graph graph, int[] distances, int[] previous, int departureIdx, int arrivalIdx) {
+        if (distances[arrivalIdx] == ShortestPathEngine.UNREACHABLE) {
+            return notFound();
+        }
+        int count = 1;
+        for (int station = arrivalIdx; station != departureIdx; station = previous[station]) {
+            count++;
+        }
+        int[] stations = new int[count];
+        int[] segmentMinutes = new int[count - 1];
+        int station = arrivalIdx;
+        for (int i = count - 1; i >= 0; i--) {
+            stations[i] = station;
+            if (i > 0) {
+                segmentMinutes[i - 1] = distances[station] - distances[previous[station]];
+                station = previous[station];
+            }
+        }
+        return new Route(stations, namesOf(graph, stations), segmentMinutes, distances[arrivalIdx]);
+    }
+
+    /**
+     * Создает пустой маршрут для недостижимой станции назначения.
+     *
+     * @return маршрут без станций.
+     */
+    public static Route notFound() {
+        return new Route(new int[0], new ArrayList<>(), new int[0], ShortestPathEngine.UNREACHABLE);
+    }
+
+    /**
+     * Создает маршрут в обратном направлении. Граф неориентированный, поэтому
+     * обратный маршрут тоже кратчайший.
+     *
+     * @return маршрут от станции назначения до станции отправления.
+     */
+    public Route reversed() {
+        int[] reversedStations = new int[stations.length];
+        List<String> reversedNames = new ArrayList<>(stationsNames.size());
+        int[] reversedSegments = new int[segmentMinutes.length];
+        for (int i = 0; i < stations.length; i++) {
+            reversedStations[i] = stations[stations.length - 1 - i];
+            reversedNames.add(stationsNames.get(stations.length - 1 - i));
+        }
+        for (int i = 0; i < segmentMinutes.length; i++) {
+            reversedSegments[i] = segmentMinutes[segmentMinutes.length - 1 - i];
+        }
+        return new Route(reversedStations, reversedNames, reversedSegments, totalMinutes);
+    }
+
+    /**
+     * Проверяет, найден ли маршрут.
+     *
+     * @return true, если станция назначения достижима.
+     */
+    public boolean isFound() {
+        return stations.length > 0;
+    }
+
+    /**
+     * Возвращает названия станций маршрута через стрелку.
+     *
+     * @return строковое представление маршрута.
+     */
+    @Override
+    public String toString() {
+        return String.join(" → ", stationsNames);
+    }
+
+    /**
+     * Получает названия станций по их индексам.
+     *
+     * @param graph граф, содержащий названия станций.
+     * @param stations индексы станций.
+     * @return список названий станций.
+     */
+    static List<String> namesOf(Graph graph, int[] stations) {
+        List<String> names = new ArrayList<>(stations.length);
+        for (int station : stations) {
+            names.add(graph.stationsNames.get(station));
+        }
+        return names;
+    }
+}
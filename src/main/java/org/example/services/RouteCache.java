@@ -0,0 +1,332 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс RouteCache - ограниченный по размеру потокобезопасный кэш найденных маршрутов.
+ * Запросы к киоскам сильно повторяются, поэтому маршруты между популярными парами
+ * станций выгоднее не искать заново.
+ *
+ * <p>Ключ - пара индексов станций, упакованная в одно число {@code long}. Граф
+ * неориентированный, поэтому ключ симметричный: меньший индекс записывается в старшие
+ * 32 бита, больший - в младшие. Вместе с найденным маршрутом сохраняется и его разворот,
+ * поэтому попадание в любом направлении не выделяет память.</p>
+ *
+ * <p>Кэш разбит на сегменты с отдельными блокировками. Каждый сегмент - хеш-таблица
+ * с открытой адресацией по примитивным ключам и двусвязный список в порядке
+ * последнего обращения; при переполнении сегмента вытесняется давно не использованный
+ * маршрут (LRU).</p>
+ *
+ * <p>Кэш привязан к графу по его номеру {@link Graph#generation}. Запрос с более новым
+ * графом очищает кэш, а запросы с более старым графом (например, начатые до
+ * перезагрузки) выполняются мимо кэша. Попадания, промахи и вытеснения учитываются
+ * в счетчиках {@link Metrics} с именами {@code имя.hit}, {@code имя.miss} и {@code имя.evictions}.</p>
+ */
+public class RouteCache {
+
+    private static final int NUM_OF_SEGMENTS = 16;
+    private final Segment[] segments = new Segment[NUM_OF_SEGMENTS];
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private volatile long generation;
+
+    /**
+     * Конструктор класса RouteCache.
+     *
+     * @param name имя кэша в метриках.
+     * @param capacity наибольшее количество маршрутов в кэше.
+     * @throws IllegalArgumentException если размер кэша не положительный.
+     */
+    public RouteCache(String name, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер кэша маршрутов должен быть положительным.");
+        }
+        int segmentCapacity = (capacity + NUM_OF_SEGMENTS - 1) / NUM_OF_SEGMENTS;
+        for (int i = 0; i < NUM_OF_SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        hits = Metrics.counter(name + ".hit");
+        misses = Metrics.counter(name + ".miss");
+        evictions = Metrics.counter(name + ".evictions");
+    }
+
+    /**
+     * Возвращает маршрут из кэша или находит его и сохраняет в кэш.
+     *
+     * @param graph граф, на котором выполняется запрос.
+     * @param engine поиск, который используется при промахе; должен работать на том же графе.
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return маршрут от станции отправления до станции назначения.
+     */
+    public Route route(Graph graph, ShortestPathEngine engine, int departureIdx, int arrivalIdx) {
+        if (!accepts(graph)) {
+            return engine.route(departureIdx, arrivalIdx);
+        }
+        long key = keyOf(departureIdx, arrivalIdx);
+        Segment segment = segmentOf(key);
+        boolean backward = departureIdx > arrivalIdx;
+        Route cached = segment.get(key, graph.generation, backward);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Маршрут ищется вне блокировки в направлении от меньшего индекса к большему
+        Route forward = engine.route(Math.min(departureIdx, arrivalIdx), Math.max(departureIdx, arrivalIdx));
+        Route reversed = forward.isFound() ? forward.reversed() : forward;
+        if (generation == graph.generation && segment.put(key, graph.generation, forward, reversed)) {
+            evictions.increment();
+        }
+        return backward ? reversed : forward;
+    }
+
+    /**
+     * Удаляет все маршруты из кэша.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Возвращает количество маршрутов в кэше.
+     *
+     * @return количество маршрутов.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш.
+     *
+     * @return количество попаданий.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Возвращает количество промахов кэша.
+     *
+     * @return количество промахов.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Проверяет, можно ли использовать кэш для запроса с указанным графом.
+     * Если граф новее того, для которого заполнен кэш, кэш очищается.
+     *
+     * @param graph граф запроса.
+     * @return true, если кэш относится к этому графу.
+     */
+    private boolean accepts(Graph graph) {
+        long current = generation;
+        if (graph.generation == current) {
+            return true;
+        }
+        if (graph.generation < current) {
+            return false;
+        }
+        synchronized (this) {
+            if (graph.generation > generation) {
+                generation = graph.generation;
+                clear();
+            }
+            return graph.generation == generation;
+        }
+    }
+
+    /**
+     * Упаковывает пару станций в симметричный ключ.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return ключ, одинаковый для обоих направлений.
+     */
+    static long keyOf(int departureIdx, int arrivalIdx) {
+        return ((long) Math.min(departureIdx, arrivalIdx) << 32) | Math.max(departureIdx, arrivalIdx);
+    }
+
+    /**
+     * Перемешивает биты ключа, чтобы соседние пары станций попадали в разные ячейки.
+     *
+     * @param key ключ.
+     * @return хеш ключа.
+     */
+    private static long hashOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Выбирает сегмент кэша по старшим битам хеша ключа.
+     *
+     * @param key ключ.
+     * @return сегмент, в котором хранится ключ.
+     */
+    private Segment segmentOf(long key) {
+        return segments[(int) (hashOf(key) >>> 60)];
+    }
+
+    /**
+     * Сегмент кэша: хеш-таблица с линейным пробированием, в ячейках которой хранятся
+     * номера записей, и двусвязный список записей от последней использованной к давно
+     * не использованной. Все методы выполняются под блокировкой сегмента.
+     *
+     * <p>Каждая запись помечена номером графа, поэтому запрос с новым графом не получит
+     * маршрут старого графа, даже если успел обратиться к сегменту до его очистки.</p>
+     */
+    private static class Segment {
+
+        private static final int NONE = -1;
+        private final int capacity;
+        private final int[] table;
+        private final int mask;
+        private final long[] keys;
+        private final long[] generations;
+        private final Route[] routes;
+        private final Route[] reversedRoutes;
+        private final int[] newer;
+        private final int[] older;
+        private int size;
+        private int newest = NONE;
+        private int oldest = NONE;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            this.table = new int[tableSize];
+            this.mask = tableSize - 1;
+            this.keys = new long[capacity];
+            this.generations = new long[capacity];
+            this.routes = new Route[capacity];
+            this.reversedRoutes = new Route[capacity];
+            this.newer = new int[capacity];
+            this.older = new int[capacity];
+            Arrays.fill(table, NONE);
+        }
+
+        synchronized Route get(long key, long generation, boolean backward) {
+            int slot = slotOf(key);
+            if (table[slot] == NONE || generations[table[slot]] != generation) {
+                return null;
+            }
+            int entry = table[slot];
+            unlink(entry);
+            linkNewest(entry);
+            return backward ? reversedRoutes[entry] : routes[entry];
+        }
+
+        /**
+         * Сохраняет маршрут и его разворот, вытесняя давно не использованный маршрут при переполнении.
+         *
+         * @return true, если маршрут был вытеснен.
+         */
+        synchronized boolean put(long key, long generation, Route route, Route reversed) {
+            int slot = slotOf(key);
+            if (table[slot] != NONE) {
+                generations[table[slot]] = generation;
+                routes[table[slot]] = route;
+                reversedRoutes[table[slot]] = reversed;
+                return false;
+            }
+            boolean evicted = false;
+            int entry;
+            if (size == capacity) {
+                entry = oldest;
+                unlink(entry);
+                remove(slotOf(keys[entry]));
+                slot = slotOf(key);
+                evicted = true;
+            } else {
+                entry = size++;
+            }
+            keys[entry] = key;
+            generations[entry] = generation;
+            routes[entry] = route;
+            reversedRoutes[entry] = reversed;
+            table[slot] = entry;
+            linkNewest(entry);
+            return evicted;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, NONE);
+            Arrays.fill(routes, null);
+            Arrays.fill(reversedRoutes, null);
+            size = 0;
+            newest = NONE;
+            oldest = NONE;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Находит ячейку таблицы с ключом или первую свободную ячейку на его пути пробирования.
+         */
+        private int slotOf(long key) {
+            int slot = (int) hashOf(key) & mask;
+            while (table[slot] != NONE && keys[table[slot]] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Освобождает ячейку таблицы, сдвигая назад следующие за ней ключи той же цепочки
+         * пробирования, чтобы поиск не обрывался на образовавшейся дыре.
+         */
+        private void remove(int slot) {
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (table[next] != NONE) {
+                int home = (int) hashOf(keys[table[next]]) & mask;
+                // Ключ можно перенести в дыру, если его исходная ячейка не лежит между дырой и им самим
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[hole] = table[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[hole] = NONE;
+        }
+
+        private void linkNewest(int entry) {
+            older[entry] = newest;
+            newer[entry] = NONE;
+            if (newest != NONE) {
+                newer[newest] = entry;
+            }
+            newest = entry;
+            if (oldest == NONE) {
+                oldest = entry;
+            }
+        }
+
+        private void unlink(int entry) {
+            if (newer[entry] != NONE) {
+                older[newer[entry]] = older[entry];
+            } else {
+                newest = older[entry];
+            }
+            if (older[entry] != NONE) {
+                newer[older[entry]] = newer[entry];
+            } else {
+                oldest = newer[entry];
+            }
+        }
+    }
+}
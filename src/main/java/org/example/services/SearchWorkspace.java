@@ -0,0 +1,81 @@
+package org.example.services;
+
+import java.util.Arrays;
+
+/**
+ * Класс SearchWorkspace - рабочие массивы одного поиска Дейкстры: расстояния,
+ * предшественники и куча. Экземпляр выдается пулом {@link SearchWorkspacePool} одному
+ * потоку и возвращается в пул методом {@link #close()}.
+ *
+ * <p>Массивы не очищаются перед каждым поиском. Вместо этого у поиска есть номер
+ * (поколение), а у каждой станции - номер поиска, в котором ее расстояние было записано:
+ * расстояние станции с другим номером считается недостижимым. Поэтому подготовка
+ * к поиску занимает O(1), а не O(V).</p>
+ */
+class SearchWorkspace implements AutoCloseable {
+
+    final int[] distances;
+    final int[] previous;
+    final IndexedMinHeap heap;
+    private final int[] stamps;
+    private final SearchWorkspacePool pool;
+    private int generation;
+    boolean leased;
+
+    /**
+     * Конструктор класса SearchWorkspace.
+     *
+     * @param numOfStations количество станций графа.
+     * @param pool пул, в который рабочие массивы возвращаются после поиска.
+     */
+    SearchWorkspace(int numOfStations, SearchWorkspacePool pool) {
+        this.distances = new int[numOfStations];
+        this.previous = new int[numOfStations];
+        this.heap = new IndexedMinHeap(numOfStations);
+        this.stamps = new int[numOfStations];
+        this.pool = pool;
+    }
+
+    /**
+     * Подготавливает рабочие массивы к новому поиску: все станции становятся недостижимыми.
+     * При переполнении номера поиска номера станций сбрасываются.
+     */
+    void begin() {
+        heap.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Возвращает расстояние до станции, найденное в текущем поиске.
+     *
+     * @param station индекс станции.
+     * @return расстояние или {@link ShortestPathEngine#UNREACHABLE}, если станция еще не достигнута.
+     */
+    int distance(int station) {
+        return stamps[station] == generation ? distances[station] : ShortestPathEngine.UNREACHABLE;
+    }
+
+    /**
+     * Записывает расстояние и предшественника станции в текущем поиске.
+     *
+     * @param station индекс станции.
+     * @param distance расстояние от станции отправления.
+     * @param predecessor станция, из которой пришли в эту станцию, или -1.
+     */
+    void reach(int station, int distance, int predecessor) {
+        stamps[station] = generation;
+        distances[station] = distance;
+        previous[station] = predecessor;
+    }
+
+    /**
+     * Возвращает рабочие массивы в пул.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
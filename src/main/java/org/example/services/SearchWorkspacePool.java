@@ -0,0 +1,65 @@
+package org.example.services;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс SearchWorkspacePool выдает потокам рабочие массивы поиска {@link SearchWorkspace}
+ * для одного графа. За каждым потоком закрепляется один экземпляр, который он получает
+ * при каждом запросе без синхронизации и без создания объектов.
+ *
+ * <p>Если поток запрашивает рабочие массивы повторно, не вернув прежние (например, во время
+ * вложенного поиска), ему выдается экземпляр из общего запаса, а при пустом запасе
+ * создается новый. Такие экземпляры после возврата снова попадают в общий запас.</p>
+ */
+class SearchWorkspacePool {
+
+    private static final LongAdder created = Metrics.counter("workspace.created");
+    private final int numOfStations;
+    private final ThreadLocal<SearchWorkspace> owned = new ThreadLocal<>();
+    private final ConcurrentLinkedQueue<SearchWorkspace> spare = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Конструктор класса SearchWorkspacePool.
+     *
+     * @param numOfStations количество станций графа.
+     */
+    SearchWorkspacePool(int numOfStations) {
+        this.numOfStations = numOfStations;
+    }
+
+    /**
+     * Выдает рабочие массивы текущему потоку. Их нужно вернуть методом
+     * {@link SearchWorkspace#close()} в том же потоке.
+     *
+     * @return рабочие массивы, подготовленные к новому поиску.
+     */
+    SearchWorkspace lease() {
+        SearchWorkspace workspace = owned.get();
+        if (workspace == null || workspace.leased) {
+            workspace = spare.poll();
+            if (workspace == null) {
+                workspace = new SearchWorkspace(numOfStations, this);
+                created.increment();
+            }
+            if (owned.get() == null) {
+                owned.set(workspace);
+            }
+        }
+        workspace.leased = true;
+        workspace.begin();
+        return workspace;
+    }
+
+    /**
+     * Принимает рабочие массивы обратно.
+     *
+     * @param workspace возвращаемые рабочие массивы.
+     */
+    void release(SearchWorkspace workspace) {
+        workspace.leased = false;
+        if (owned.get() != workspace) {
+            spare.offer(workspace);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.services;
+
+/**
+ * Интерфейс ShortestPathEngine описывает алгоритм поиска минимального расстояния
+ * и маршрута между двумя станциями графа метрополитена. Реализация привязана к конкретному
+ * графу, который передается ей при создании.
+ *
+ * <p>Если станция назначения недостижима, возвращается значение Integer.MAX_VALUE,
+ * как и в {@link Dijkstra}.</p>
+ */
+public interface ShortestPathEngine {
+
+    /**
+     * Значение расстояния до недостижимой станции.
+     */
+    int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Находит минимальное время в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return минимальное время в пути в минутах или {@link #UNREACHABLE}.
+     */
+    int distance(int departureIdx, int arrivalIdx);
+
+    /**
+     * Находит маршрут с минимальным временем в пути между двумя станциями.
+     *
+     * @param departureIdx индекс станции отправления.
+     * @param arrivalIdx индекс станции назначения.
+     * @return найденный маршрут; если станция недостижима, маршрут пустой.
+     */
+    Route route(int departureIdx, int arrivalIdx);
+}
@@ -0,0 +1,239 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Класс StationAutocomplete подбирает подсказки названий станций по введенному тексту.
+ * Он достаточно быстр, чтобы вызываться при каждом нажатии клавиши в поле ввода.
+ *
+ * <p>Используются два индекса, которые строятся один раз при создании объекта:</p>
+ * <ul>
+ *     <li>отсортированный массив названий и всех их слов, по которому бинарным поиском
+ *     находятся станции, название или одно из слов которых начинается с введенного текста;</li>
+ *     <li>индекс триграмм (троек соседних букв) в сжатом формате, по которому находятся
+ *     похожие названия, если в тексте есть опечатка.</li>
+ * </ul>
+ *
+ * <p>Текст и названия приводятся к единому виду методом {@link StationIndex#normalize(String)}.
+ * Выше всего ранжируются станции, название которых начинается с текста, затем станции,
+ * у которых с текста начинается одно из слов, затем похожие названия. При равенстве
+ * выше стоит более короткое название. Объект не изменяется после создания и может
+ * использоваться из нескольких потоков.</p>
+ */
+public class StationAutocomplete {
+
+    private static final int NAME_PREFIX_SCORE = 3_000_000;
+    private static final int WORD_PREFIX_SCORE = 2_000_000;
+    private static final int MIN_SIMILARITY_PERMILLE = 500;
+    private final List<String> stationsNames;
+    private final String[] normalizedNames;
+    private final String[] prefixKeys;
+    private final int[] prefixStations;
+    private final long[] trigramKeys;
+    private final int[] trigramOffsets;
+    private final int[] trigramStations;
+    private final int[] trigramCounts;
+
+    /**
+     * Конструктор класса StationAutocomplete, который строит индексы подсказок.
+     *
+     * @param stationsNames названия станций, индекс в списке совпадает с индексом станции.
+     */
+    public StationAutocomplete(List<String> stationsNames) {
+        this.stationsNames = new ArrayList<>(stationsNames);
+        int numOfStations = stationsNames.size();
+        normalizedNames = new String[numOfStations];
+        for (int i = 0; i < numOfStations; i++) {
+            normalizedNames[i] = StationIndex.normalize(stationsNames.get(i));
+        }
+
+        // Каждое название попадает в массив префиксов целиком и начиная с каждого следующего слова
+        List<String> keys = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < numOfStations; i++) {
+            String name = normalizedNames[i];
+            int start = 0;
+            while (start >= 0) {
+                keys.add(name.substring(start));
+                owners.add(i);
+                int space = name.indexOf(' ', start);
+                start = space < 0 ? -1 : space + 1;
+            }
+        }
+        Integer[] order = new Integer[keys.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+        prefixKeys = new String[order.length];
+        prefixStations = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            prefixKeys[i] = keys.get(order[i]);
+            prefixStations[i] = owners.get(order[i]);
+        }
+
+        // Триграммы станций сортируются, и для каждой уникальной триграммы хранится список станций
+        trigramCounts = new int[numOfStations];
+        long[][] stationTrigrams = new long[numOfStations][];
+        int total = 0;
+        for (int i = 0; i < numOfStations; i++) {
+            stationTrigrams[i] = trigramsOf(normalizedNames[i]);
+            trigramCounts[i] = stationTrigrams[i].length;
+            total += stationTrigrams[i].length;
+        }
+        long[] pairs = new long[total];
+        int[] pairStations = new int[total];
+        int position = 0;
+        for (int i = 0; i < numOfStations; i++) {
+            for (long trigram : stationTrigrams[i]) {
+                pairs[position] = trigram;
+                pairStations[position++] = i;
+            }
+        }
+        Integer[] pairOrder = new Integer[total];
+        Arrays.setAll(pairOrder, i -> i);
+        Arrays.sort(pairOrder, (a, b) -> pairs[a] != pairs[b] ? Long.compare(pairs[a], pairs[b])
+                : Integer.compare(pairStations[a], pairStations[b]));
+        long[] uniqueKeys = new long[total];
+        int[] offsets = new int[total + 1];
+        trigramStations = new int[total];
+        int unique = 0;
+        for (int i = 0; i < total; i++) {
+            long trigram = pairs[pairOrder[i]];
+            if (unique == 0 || uniqueKeys[unique - 1] != trigram) {
+                uniqueKeys[unique] = trigram;
+                offsets[unique++] = i;
+            }
+            trigramStations[i] = pairStations[pairOrder[i]];
+        }
+        offsets[unique] = total;
+        trigramKeys = Arrays.copyOf(uniqueKeys, unique);
+        trigramOffsets = Arrays.copyOf(offsets, unique + 1);
+    }
+
+    /**
+     * Подбирает подсказки для введенного текста.
+     *
+     * @param text введенный пользователем текст.
+     * @param limit наибольшее количество подсказок.
+     * @return названия станций в порядке убывания релевантности; пустой список, если текст пустой.
+     */
+    public List<String> suggest(String text, int limit) {
+        String query = StationIndex.normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int[] scores = new int[normalizedNames.length];
+        collectPrefixMatches(query, scores);
+        collectSimilarNames(query, scores);
+        return topStations(scores, limit);
+    }
+
+    /**
+     * Находит станции, название или одно из слов которых начинается с текста запроса.
+     *
+     * @param query текст запроса в едином виде.
+     * @param scores массив оценок станций, который дополняется найденными станциями.
+     */
+    private void collectPrefixMatches(String query, int[] scores) {
+        int low = 0;
+        int high = prefixKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prefixKeys[middle].compareTo(query) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < prefixKeys.length && prefixKeys[i].startsWith(query); i++) {
+            int station = prefixStations[i];
+            int base = prefixKeys[i].length() == normalizedNames[station].length() ? NAME_PREFIX_SCORE : WORD_PREFIX_SCORE;
+            scores[station] = Math.max(scores[station], base - normalizedNames[station].length());
+        }
+    }
+
+    /**
+     * Находит станции с похожими названиями по доле общих с запросом триграмм.
+     * Оценка снижается, если название содержит намного больше триграмм, чем запрос,
+     * и станция учитывается, только если оценка не ниже половины.
+     *
+     * @param query текст запроса в едином виде.
+     * @param scores массив оценок станций, который дополняется найденными станциями.
+     */
+    private void collectSimilarNames(String query, int[] scores) {
+        long[] queryTrigrams = trigramsOf(query);
+        int[] shared = new int[normalizedNames.length];
+        for (long trigram : queryTrigrams) {
+            int index = Arrays.binarySearch(trigramKeys, trigram);
+            if (index >= 0) {
+                for (int i = trigramOffsets[index]; i < trigramOffsets[index + 1]; i++) {
+                    shared[trigramStations[i]]++;
+                }
+            }
+        }
+        for (int station = 0; station < shared.length; station++) {
+            if (shared[station] == 0) {
+                continue;
+            }
+            // Название может быть длиннее запроса, поэтому учитывается и доля общих триграмм названия
+            int coverage = 1000 * shared[station] / queryTrigrams.length;
+            int overlap = 1000 * shared[station] / Math.max(queryTrigrams.length, trigramCounts[station]);
+            int similarity = Math.max(coverage - (1000 - overlap) / 4, 0);
+            if (similarity >= MIN_SIMILARITY_PERMILLE) {
+                scores[station] = Math.max(scores[station], similarity * 1000 - normalizedNames[station].length());
+            }
+        }
+    }
+
+    /**
+     * Выбирает станции с наибольшими оценками.
+     *
+     * @param scores массив оценок станций; нулевая оценка означает, что станция не подходит.
+     * @param limit наибольшее количество станций.
+     * @return названия выбранных станций в порядке убывания оценки.
+     */
+    private List<String> topStations(int[] scores, int limit) {
+        int[] top = new int[limit];
+        int size = 0;
+        for (int station = 0; station < scores.length; station++) {
+            if (scores[station] <= 0 || (size == limit && scores[station] <= scores[top[size - 1]])) {
+                continue;
+            }
+            int position = size < limit ? size++ : size - 1;
+            while (position > 0 && scores[top[position - 1]] < scores[station]) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = station;
+        }
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(stationsNames.get(top[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Разбивает строку на уникальные триграммы. Строка дополняется пробелами
+     * в начале, чтобы начальные буквы имели больший вес.
+     *
+     * @param text строка в едином виде.
+     * @return отсортированный массив триграмм, каждая упакована в число.
+     */
+    private static long[] trigramsOf(String text) {
+        String padded = "  " + text;
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int unique = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (unique == 0 || trigrams[unique - 1] != trigrams[i]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.services;
+
+import java.util.List;
+
+/**
+ * Класс StationIndex сопоставляет названиям станций их индексы за O(1).
+ * Используется хеш-таблица с открытой адресацией и линейным пробированием,
+ * которая строится один раз при загрузке названий станций.
+ *
+ * <p>Названия приводятся к единому виду методом {@link #normalize(String)}: пробелы
+ * по краям отбрасываются, буквы переводятся в верхний регистр (так же, как это делает
+ * {@code SubwayApp.getIdx}), а буква Ё заменяется на Е. Поэтому «Чёрная речка»
+ * и «ЧЕРНАЯ РЕЧКА» обозначают одну и ту же станцию.</p>
+ */
+public class StationIndex {
+
+    private static final int NOT_FOUND = -1;
+    private final String[] keys;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * Конструктор класса StationIndex.
+     *
+     * @param stationsNames названия станций, индекс в списке совпадает с индексом станции.
+     * @throws IllegalArgumentException если после приведения к единому виду два названия совпадают.
+     */
+    public StationIndex(List<String> stationsNames) {
+        int capacity = Integer.highestOneBit(Math.max(2, stationsNames.size()) * 2 - 1) << 1;
+        keys = new String[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < stationsNames.size(); i++) {
+            String key = normalize(stationsNames.get(i));
+            int slot = slotOf(key);
+            if (keys[slot] != null) {
+                throw new IllegalArgumentException("Станция '" + stationsNames.get(i)
+                        + "' указана в списке станций несколько раз, проверьте правильность заполнения файлов.");
+            }
+            keys[slot] = key;
+            values[slot] = i;
+        }
+    }
+
+    /**
+     * Приводит название станции к единому виду: отбрасывает пробелы по краям,
+     * переводит буквы в верхний регистр и заменяет Ё на Е.
+     *
+     * @param stationName название станции.
+     * @return название станции в едином виде.
+     */
+    public static String normalize(String stationName) {
+        return stationName.trim().toUpperCase().replace('Ё', 'Е');
+    }
+
+    /**
+     * Получает индекс станции по ее названию.
+     *
+     * @param stationName название станции в любом регистре.
+     * @return индекс станции или -1, если станция не найдена.
+     */
+    public int indexOf(String stationName) {
+        String key = normalize(stationName);
+        int slot = slotOf(key);
+        return keys[slot] == null ? NOT_FOUND : values[slot];
+    }
+
+    /**
+     * Находит ячейку таблицы, в которой хранится ключ, или первую свободную ячейку
+     * на его пути пробирования.
+     *
+     * @param key название станции в едином виде.
+     * @return номер ячейки таблицы.
+     */
+    private int slotOf(String key) {
+        int hash = key.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
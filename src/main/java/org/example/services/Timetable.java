@@ -0,0 +1,386 @@
+package org.example.services;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Класс Timetable - расписание движения поездов по линиям метрополитена в виде
+ * плоских массивов отправлений (connections), по которому {@link ConnectionScan}
+ * находит самое раннее время прибытия.
+ *
+ * <p>Линии описываются в отдельном файле, по одной линии в строке:</p>
+ * <pre>
+ * номер,название,интервал в минутах,начало движения,конец движения,СТАНЦИЯ;СТАНЦИЯ;...
+ * 1,Кировско-Выборгская,3,05:35,00:30,ДЕВЯТКИНО;ГРАЖДАНСКИЙ ПРОСПЕКТ;...
+ * </pre>
+ *
+ * <p>Поезда отправляются с обеих конечных станций с заданным интервалом от начала
+ * до конца движения; если конец раньше начала, движение продолжается после полуночи.
+ * Время между соседними станциями линии берется из веса ребра графа. Ребра графа,
+ * которые не входят ни в одну линию, считаются пешеходными переходами между станциями,
+ * а их вес - временем пересадки. Переходы замыкаются: если от станции A можно пройти
+ * к B, а от B к C, то добавляется переход от A к C.</p>
+ *
+ * <p>Время хранится в минутах от полуночи начала суток движения, поэтому поезда после
+ * полуночи имеют время больше 1440. Отправления упорядочены по времени отправления
+ * и лежат в параллельных массивах, поэтому поиск читает память последовательно.
+ * Объект не изменяется после создания и может использоваться из нескольких потоков.</p>
+ */
+public class Timetable {
+
+    private static final Logger logger = LogManager.getLogger(Timetable.class);
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int SERVICE_DAY_START = 3 * 60;
+    private static final int NUM_OF_FIELDS = 6;
+    public final Graph graph;
+    public final List<String> linesIds;
+    public final List<String> linesNames;
+    final int[] departureStations;
+    final int[] arrivalStations;
+    final int[] departureTimes;
+    final int[] arrivalTimes;
+    final int[] connectionTrips;
+    final int[] tripLines;
+    final int[] footpathOffsets;
+    final int[] footpathTargets;
+    final int[] footpathMinutes;
+
+    /**
+     * Конструктор класса Timetable, который строит массивы отправлений и переходов по описанию линий.
+     *
+     * @param graph граф метрополитена.
+     * @param linesIds номера линий.
+     * @param linesNames названия линий.
+     * @param lineStops станции каждой линии по порядку.
+     * @param headways интервалы движения линий в минутах.
+     * @param firstDepartures время первого отправления с конечных станций каждой линии.
+     * @param lastDepartures время последнего отправления с конечных станций каждой линии.
+     */
+    private Timetable(Graph graph, List<String> linesIds, List<String> linesNames, List<int[]> lineStops,
+                      int[] headways, int[] firstDepartures, int[] lastDepartures) {
+        this.graph = graph;
+        this.linesIds = Collections.unmodifiableList(linesIds);
+        this.linesNames = Collections.unmodifiableList(linesNames);
+        int numOfLines = lineStops.size();
+
+        int numOfTrips = 0;
+        int numOfConnections = 0;
+        for (int line = 0; line < numOfLines; line++) {
+            int tripsPerDirection = (lastDepartures[line] - firstDepartures[line]) / headways[line] + 1;
+            numOfTrips += 2 * tripsPerDirection;
+            numOfConnections += 2 * tripsPerDirection * (lineStops.get(line).length - 1);
+        }
+        int[] depStations = new int[numOfConnections];
+        int[] arrStations = new int[numOfConnections];
+        int[] depTimes = new int[numOfConnections];
+        int[] arrTimes = new int[numOfConnections];
+        int[] trips = new int[numOfConnections];
+        tripLines = new int[numOfTrips];
+
+        Set<Long> lineEdges = new HashSet<>();
+        int trip = 0;
+        int connection = 0;
+        for (int line = 0; line < numOfLines; line++) {
+            int[] stops = lineStops.get(line);
+            int[] rideMinutes = new int[stops.length - 1];
+            for (int i = 0; i < rideMinutes.length; i++) {
+                rideMinutes[i] = edgeWeight(graph, stops[i], stops[i + 1]);
+                lineEdges.add(RouteCache.keyOf(stops[i], stops[i + 1]));
+            }
+            for (int direction = 0; direction < 2; direction++) {
+                for (int start = firstDepartures[line]; start <= lastDepartures[line]; start += headways[line]) {
+                    int time = start;
+                    for (int i = 0; i < rideMinutes.length; i++) {
+                        int hop = direction == 0 ? i : rideMinutes.length - 1 - i;
+                        depStations[connection] = direction == 0 ? stops[hop] : stops[hop + 1];
+                        arrStations[connection] = direction == 0 ? stops[hop + 1] : stops[hop];
+                        depTimes[connection] = time;
+                        time += rideMinutes[hop];
+                        arrTimes[connection] = time;
+                        trips[connection++] = trip;
+                    }
+                    tripLines[trip++] = line;
+                }
+            }
+        }
+
+        // Отправления сортируются по времени отправления, номер отправления хранится в младших битах ключа
+        long[] order = new long[numOfConnections];
+        for (int c = 0; c < numOfConnections; c++) {
+            order[c] = ((long) depTimes[c] << 32) | c;
+        }
+        Arrays.sort(order);
+        departureStations = new int[numOfConnections];
+        arrivalStations = new int[numOfConnections];
+        departureTimes = new int[numOfConnections];
+        arrivalTimes = new int[numOfConnections];
+        connectionTrips = new int[numOfConnections];
+        for (int i = 0; i < numOfConnections; i++) {
+            int c = (int) order[i];
+            departureStations[i] = depStations[c];
+            arrivalStations[i] = arrStations[c];
+            departureTimes[i] = depTimes[c];
+            arrivalTimes[i] = arrTimes[c];
+            connectionTrips[i] = trips[c];
+        }
+
+        int[][] footpaths = closeFootpaths(graph, lineEdges);
+        footpathOffsets = footpaths[0];
+        footpathTargets = footpaths[1];
+        footpathMinutes = footpaths[2];
+        logger.info("Расписание построено: линий {}, рейсов {}, отправлений {}, переходов {}.",
+                numOfLines, numOfTrips, numOfConnections, footpathTargets.length);
+    }
+
+    /**
+     * Загружает описание линий из ресурсов приложения и строит расписание.
+     *
+     * @param graph граф метрополитена.
+     * @param fileLines имя файла, содержащего описание линий.
+     * @return расписание.
+     * @throws FileNotFoundException если файл не найден.
+     * @throws org.example.exceptions.NetworkFormatException если строка файла заполнена неправильно.
+     */
+    public static Timetable fromFile(Graph graph, String fileLines) throws FileNotFoundException {
+        return read(graph, fileLines, false);
+    }
+
+    /**
+     * Загружает описание линий из файловой системы и строит расписание.
+     *
+     * @param graph граф метрополитена.
+     * @param fileLines путь к файлу, содержащему описание линий.
+     * @return расписание.
+     * @throws FileNotFoundException если файл не найден.
+     * @throws org.example.exceptions.NetworkFormatException если строка файла заполнена неправильно.
+     */
+    public static Timetable fromFile(Graph graph, Path fileLines) throws FileNotFoundException {
+        return read(graph, fileLines.toString(), true);
+    }
+
+    /**
+     * Переводит время вида {@code ЧЧ:ММ} в минуты от полуночи.
+     *
+     * @param text время, например {@code 08:15}.
+     * @return количество минут от полуночи.
+     * @throws IllegalArgumentException если время записано неправильно.
+     */
+    public static int parseTime(String text) {
+        String time = text.trim();
+        int colon = time.indexOf(':');
+        try {
+            int hours = Integer.parseInt(time.substring(0, Math.max(colon, 0)));
+            int minutes = Integer.parseInt(time.substring(colon + 1));
+            if (colon > 0 && hours >= 0 && hours < 24 && minutes >= 0 && minutes < 60) {
+                return hours * 60 + minutes;
+            }
+        } catch (NumberFormatException e) {
+            // Сообщение об ошибке формируется ниже
+        }
+        throw new IllegalArgumentException("Время '" + text + "' должно быть записано в виде ЧЧ:ММ.");
+    }
+
+    /**
+     * Записывает время в виде {@code ЧЧ:ММ}. Время после полуночи следующих суток
+     * записывается по модулю суток.
+     *
+     * @param minutes количество минут от полуночи начала суток движения.
+     * @return время в виде {@code ЧЧ:ММ}.
+     */
+    public static String formatTime(int minutes) {
+        int time = minutes % MINUTES_PER_DAY;
+        return String.format("%02d:%02d", time / 60, time % 60);
+    }
+
+    /**
+     * Возвращает количество отправлений в расписании.
+     *
+     * @return количество отправлений.
+     */
+    public int numOfConnections() {
+        return departureTimes.length;
+    }
+
+    /**
+     * Возвращает количество рейсов в расписании.
+     *
+     * @return количество рейсов.
+     */
+    public int numOfTrips() {
+        return tripLines.length;
+    }
+
+    /**
+     * Находит первое отправление не раньше указанного времени бинарным поиском.
+     *
+     * @param time время в минутах от полуночи начала суток движения.
+     * @return номер отправления или количество отправлений, если таких нет.
+     */
+    int firstConnectionAtOrAfter(int time) {
+        int low = 0;
+        int high = departureTimes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (departureTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Читает описание линий и строит расписание.
+     *
+     * @param graph граф метрополитена.
+     * @param fileName имя или путь файла с описанием линий.
+     * @param fromFileSystem true, если имя файла - путь в файловой системе.
+     * @return расписание.
+     * @throws FileNotFoundException если файл не найден.
+     */
+    private static Timetable read(Graph graph, String fileName, boolean fromFileSystem) throws FileNotFoundException {
+        List<String> linesIds = new ArrayList<>();
+        List<String> linesNames = new ArrayList<>();
+        List<int[]> lineStops = new ArrayList<>();
+        List<int[]> schedules = new ArrayList<>();
+        try (LineParser parser = new LineParser(Matrix.open(fileName, fromFileSystem), fileName)) {
+            while (parser.nextLine()) {
+                if (parser.fieldCount() != NUM_OF_FIELDS) {
+                    throw parser.error("ожидается 'номер,название,интервал,начало,конец,станции', а найдено полей: "
+                            + parser.fieldCount() + ".");
+                }
+                int headway = parser.intField(2);
+                if (headway <= 0) {
+                    throw parser.error("интервал движения должен быть положительным.");
+                }
+                int first;
+                int last;
+                try {
+                    first = parseTime(parser.field(3));
+                    last = parseTime(parser.field(4));
+                } catch (IllegalArgumentException e) {
+                    throw parser.error(e.getMessage());
+                }
+                if (last < first) {
+                    last += MINUTES_PER_DAY;
+                }
+                String[] names = parser.field(5).split(";");
+                if (names.length < 2) {
+                    throw parser.error("на линии должно быть не меньше двух станций.");
+                }
+                int[] stops = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    stops[i] = graph.stationIndex.indexOf(names[i]);
+                    if (stops[i] == -1) {
+                        throw parser.error("станция '" + names[i].trim() + "' не найдена, проверьте правильность заполнения файлов.");
+                    }
+                    if (i > 0 && edgeWeight(graph, stops[i - 1], stops[i]) == ShortestPathEngine.UNREACHABLE) {
+                        throw parser.error("между станциями '" + names[i - 1].trim() + "' и '" + names[i].trim()
+                                + "' нет перегона в файле ребер.");
+                    }
+                }
+                linesIds.add(parser.field(0).trim());
+                linesNames.add(parser.field(1).trim());
+                lineStops.add(stops);
+                schedules.add(new int[] {headway, first, last});
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл " + fileName, e);
+        }
+        int[] headways = new int[schedules.size()];
+        int[] firstDepartures = new int[schedules.size()];
+        int[] lastDepartures = new int[schedules.size()];
+        for (int line = 0; line < schedules.size(); line++) {
+            headways[line] = schedules.get(line)[0];
+            firstDepartures[line] = schedules.get(line)[1];
+            lastDepartures[line] = schedules.get(line)[2];
+        }
+        return new Timetable(graph, linesIds, linesNames, lineStops, headways, firstDepartures, lastDepartures);
+    }
+
+    /**
+     * Находит вес ребра между двумя станциями.
+     *
+     * @param graph граф метрополитена.
+     * @param from индекс первой станции.
+     * @param to индекс второй станции.
+     * @return наименьший вес ребра или {@link ShortestPathEngine#UNREACHABLE}, если ребра нет.
+     */
+    private static int edgeWeight(Graph graph, int from, int to) {
+        int weight = ShortestPathEngine.UNREACHABLE;
+        for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+            if (graph.targets[e] == to) {
+                weight = Math.min(weight, graph.weights[e]);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Строит замкнутые пешеходные переходы: для каждой станции - все станции, до которых
+     * можно дойти только по переходам, с наименьшим временем пути.
+     *
+     * @param graph граф метрополитена.
+     * @param lineEdges ключи ребер, входящих в линии.
+     * @return массивы offsets, targets и minutes переходов в сжатом формате.
+     */
+    private static int[][] closeFootpaths(Graph graph, Set<Long> lineEdges) {
+        int numOfStations = graph.numOfTheStations;
+        int[] offsets = new int[numOfStations + 1];
+        int[] targets = new int[0];
+        int[] minutes = new int[0];
+        int[] distances = new int[numOfStations];
+        Arrays.fill(distances, ShortestPathEngine.UNREACHABLE);
+        int[] reached = new int[numOfStations];
+        IndexedMinHeap heap = new IndexedMinHeap(numOfStations);
+        int count = 0;
+        for (int source = 0; source < numOfStations; source++) {
+            offsets[source] = count;
+            int numOfReached = 0;
+            distances[source] = 0;
+            reached[numOfReached++] = source;
+            heap.insertOrDecrease(source, 0);
+            while (!heap.isEmpty()) {
+                int station = heap.pollMin();
+                for (int e = graph.offsets[station]; e < graph.offsets[station + 1]; e++) {
+                    int next = graph.targets[e];
+                    int candidate = distances[station] + graph.weights[e];
+                    if (!lineEdges.contains(RouteCache.keyOf(station, next)) && candidate < distances[next]) {
+                        if (distances[next] == ShortestPathEngine.UNREACHABLE) {
+                            reached[numOfReached++] = next;
+                        }
+                        distances[next] = candidate;
+                        heap.insertOrDecrease(next, candidate);
+                    }
+                }
+            }
+            if (count + numOfReached > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(2 * targets.length, count + numOfReached));
+                minutes = Arrays.copyOf(minutes, targets.length);
+            }
+            for (int i = 0; i < numOfReached; i++) {
+                if (reached[i] != source) {
+                    targets[count] = reached[i];
+                    minutes[count++] = distances[reached[i]];
+                }
+                distances[reached[i]] = ShortestPathEngine.UNREACHABLE;
+            }
+        }
+        offsets[numOfStations] = count;
+        return new int[][] {offsets, Arrays.copyOf(targets, count), Arrays.copyOf(minutes, count)};
+    }
+}
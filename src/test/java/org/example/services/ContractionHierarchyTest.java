@@ -0,0 +1,96 @@
+package org.example.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка {@link ContractionHierarchy} и {@link HierarchyDijkstra}: для всех пар станций
+ * встроенной сети время в пути и маршруты сравниваются с {@link HeapDijkstra}, в том числе
+ * после сохранения иерархии в файл и загрузки из него.
+ */
+class ContractionHierarchyTest {
+
+    @Test
+    void hierarchyMatchesDijkstraOnBundledNetwork() throws IOException {
+        Graph graph = Graph.fromFiles("stations.txt", "rebra.txt");
+        assertEquals(72, graph.numOfTheStations);
+        checkAllPairs(graph, ContractionHierarchy.build(graph));
+    }
+
+    @Test
+    void savedHierarchyIsLoadedUnchanged(@TempDir Path directory) throws IOException {
+        Graph graph = Graph.fromFiles("stations.txt", "rebra.txt");
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        Path snapshot = directory.resolve("hierarchy.bin");
+        hierarchy.save(snapshot);
+
+        ContractionHierarchy loaded = ContractionHierarchy.load(graph, snapshot);
+        assertNotNull(loaded, "Иерархия не загружена.");
+        assertEquals(hierarchy.numOfShortcuts(), loaded.numOfShortcuts());
+        checkAllPairs(graph, loaded);
+    }
+
+    @Test
+    void hierarchyOfAnotherGraphIsNotLoaded(@TempDir Path directory) throws IOException {
+        Graph graph = Graph.fromFiles("stations.txt", "rebra.txt");
+        Path snapshot = directory.resolve("hierarchy.bin");
+        ContractionHierarchy.build(graph).save(snapshot);
+
+        Graph other = new Graph(List.of("A", "B"), new int[]{0}, new int[]{1}, new int[]{3}, 1);
+        assertNull(ContractionHierarchy.load(other, snapshot));
+    }
+
+    private static void checkAllPairs(Graph graph, ContractionHierarchy hierarchy) {
+        HeapDijkstra dijkstra = new HeapDijkstra(graph);
+        HierarchyDijkstra search = new HierarchyDijkstra(hierarchy);
+        for (int departure = 0; departure < graph.numOfTheStations; departure++) {
+            for (int arrival = 0; arrival < graph.numOfTheStations; arrival++) {
+                String message = graph.stationsNames.get(departure) + " -> " + graph.stationsNames.get(arrival);
+                int expected = dijkstra.distance(departure, arrival);
+                assertEquals(expected, search.distance(departure, arrival), message);
+
+                Route route = search.route(departure, arrival);
+                if (expected == ShortestPathEngine.UNREACHABLE) {
+                    assertFalse(route.isFound(), message);
+                    continue;
+                }
+                assertTrue(route.isFound(), message);
+                assertEquals(expected, route.totalMinutes, message);
+                checkRoute(graph, route, departure, arrival, message);
+            }
+        }
+    }
+
+    private static void checkRoute(Graph graph, Route route, int departure, int arrival, String message) {
+        int[] stations = route.stations;
+        assertEquals(departure, stations[0], message);
+        assertEquals(arrival, stations[stations.length - 1], message);
+        assertEquals(stations.length - 1, route.segmentMinutes.length, message);
+        int sum = 0;
+        for (int i = 1; i < stations.length; i++) {
+            assertTrue(hasEdge(graph, stations[i - 1], stations[i], route.segmentMinutes[i - 1]),
+                    message + ": нет перегона " + stations[i - 1] + " - " + stations[i]);
+            sum += route.segmentMinutes[i - 1];
+        }
+        assertEquals(route.totalMinutes, sum, message);
+    }
+
+    private static boolean hasEdge(Graph graph, int from, int to, int minutes) {
+        for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+            if (graph.targets[e] == to && graph.weights[e] == minutes) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка {@link KShortestPaths}: на небольших случайных графах маршруты алгоритма Йена
+ * сравниваются с перебором всех маршрутов без повторяющихся станций.
+ */
+class KShortestPathsTest {
+
+    private static final int TRIALS = 300;
+    private static final int K = 6;
+
+    @Test
+    void routesMatchBruteForce() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            int numOfStations = 5 + random.nextInt(8);
+            Graph graph = randomGraph(random, numOfStations);
+            int[][] weight = adjacency(graph);
+            KShortestPaths search = new KShortestPaths(graph);
+            int departure = random.nextInt(numOfStations);
+            int arrival = random.nextInt(numOfStations);
+
+            List<Integer> expected = bruteForce(weight, departure, arrival);
+            List<Route> routes = search.routes(departure, arrival, K);
+            String message = "испытание " + trial + ", " + departure + " -> " + arrival;
+
+            assertEquals(Math.min(K, expected.size()), routes.size(), message);
+            for (int i = 0; i < routes.size(); i++) {
+                Route route = routes.get(i);
+                assertEquals(expected.get(i).intValue(), route.totalMinutes, message + ", маршрут " + i);
+                checkRoute(weight, route, departure, arrival, message + ", маршрут " + i);
+            }
+        }
+    }
+
+    @Test
+    void unreachableStationGivesNoRoutes() {
+        Graph graph = new Graph(List.of("A", "B", "C"), new int[]{0}, new int[]{1}, new int[]{3}, 1);
+        assertTrue(new KShortestPaths(graph).routes(0, 2, K).isEmpty());
+    }
+
+    @Test
+    void nonPositiveCountIsRejected() {
+        Graph graph = new Graph(List.of("A", "B"), new int[]{0}, new int[]{1}, new int[]{3}, 1);
+        assertThrows(IllegalArgumentException.class, () -> new KShortestPaths(graph).routes(0, 1, 0));
+    }
+
+    private static Graph randomGraph(Random random, int numOfStations) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < numOfStations; i++) {
+            names.add("Станция " + i);
+        }
+        int maxEdges = numOfStations * (numOfStations - 1) / 2;
+        int numOfEdges = random.nextInt(Math.min(maxEdges, numOfStations * 2) + 1);
+        int[] from = new int[numOfEdges];
+        int[] to = new int[numOfEdges];
+        int[] weight = new int[numOfEdges];
+        Set<Long> used = new HashSet<>();
+        int count = 0;
+        while (count < numOfEdges) {
+            int a = random.nextInt(numOfStations);
+            int b = random.nextInt(numOfStations);
+            if (a == b || !used.add((long) Math.min(a, b) * numOfStations + Math.max(a, b))) {
+                continue;
+            }
+            from[count] = a;
+            to[count] = b;
+            weight[count++] = random.nextInt(5);
+        }
+        return new Graph(names, from, to, weight, numOfEdges);
+    }
+
+    private static int[][] adjacency(Graph graph) {
+        int[][] weight = new int[graph.numOfTheStations][graph.numOfTheStations];
+        for (int[] row : weight) {
+            Arrays.fill(row, -1);
+        }
+        for (int v = 0; v < graph.numOfTheStations; v++) {
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                weight[v][graph.targets[e]] = graph.weights[e];
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Перебирает все маршруты без повторяющихся станций и возвращает их время в пути по возрастанию.
+     */
+    private static List<Integer> bruteForce(int[][] weight, int departure, int arrival) {
+        List<Integer> totals = new ArrayList<>();
+        boolean[] visited = new boolean[weight.length];
+        visited[departure] = true;
+        collect(weight, departure, arrival, 0, visited, totals);
+        Collections.sort(totals);
+        return totals;
+    }
+
+    private static void collect(int[][] weight, int station, int arrival, int total, boolean[] visited, List<Integer> totals) {
+        if (station == arrival) {
+            totals.add(total);
+            return;
+        }
+        for (int next = 0; next < weight.length; next++) {
+            if (weight[station][next] >= 0 && !visited[next]) {
+                visited[next] = true;
+                collect(weight, next, arrival, total + weight[station][next], visited, totals);
+                visited[next] = false;
+            }
+        }
+    }
+
+    private static void checkRoute(int[][] weight, Route route, int departure, int arrival, String message) {
+        int[] stations = route.stations;
+        assertEquals(departure, stations[0], message);
+        assertEquals(arrival, stations[stations.length - 1], message);
+        assertEquals(stations.length - 1, route.segmentMinutes.length, message);
+        Set<Integer> seen = new HashSet<>();
+        int sum = 0;
+        for (int i = 0; i < stations.length; i++) {
+            assertTrue(seen.add(stations[i]), message + ": станция " + stations[i] + " повторяется");
+            if (i > 0) {
+                assertEquals(weight[stations[i - 1]][stations[i]], route.segmentMinutes[i - 1], message);
+                sum += route.segmentMinutes[i - 1];
+            }
+        }
+        assertEquals(route.totalMinutes, sum, message);
+    }
+}